@@ -0,0 +1,116 @@
+package com.apm.poc.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.apm.poc.config.ErrorHandlingProperties;
+import com.apm.poc.dto.ErrorResponse;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.ErrorLogger;
+import com.apm.poc.exception.GlobalExceptionHandler;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.exception.ProviderUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping errors to HTTP responses, including constructing the exception itself.
+ *
+ * legacy* reproduces the previous error path: a decline wrapped in a second PaymentException,
+ * both capturing a stack trace, mapped to a freshly built map body. The other benchmarks throw
+ * the typed, stackless exceptions the services use now and get the cached response back.
+ * The *Contended variants run the same on 8 threads, as during a storm of declines.
+ *
+ * Logging is switched off so the console isn't measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MethodArgumentNotValidException validationException;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(GlobalExceptionHandler.class)).setLevel(Level.OFF);
+        ((Logger) LoggerFactory.getLogger(ErrorLogger.class)).setLevel(Level.OFF);
+        ErrorHandlingProperties properties = new ErrorHandlingProperties();
+        handler = new GlobalExceptionHandler(properties, new ErrorLogger(properties, new SimpleMeterRegistry()));
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new PaymentRequest(), "paymentRequest");
+        bindingResult.addError(new FieldError("paymentRequest", "userEmail", "User email is required"));
+        bindingResult.addError(new FieldError("paymentRequest", "amount", "Amount must be greater than 0"));
+        validationException = new MethodArgumentNotValidException(null, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> legacyDecline() {
+        return legacy();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResponseEntity<Map<String, String>> legacyDeclineContended() {
+        return legacy();
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> typedDecline() {
+        return handler.handlePaymentException(new PaymentException(ErrorCode.INVALID_AMOUNT, "Invalid amount"));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ResponseEntity<ErrorResponse> typedDeclineContended() {
+        return handler.handlePaymentException(new PaymentException(ErrorCode.INVALID_AMOUNT, "Invalid amount"));
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> providerUnavailable() {
+        return handler.handlePaymentException(
+                new ProviderUnavailableException("Payment provider paypal is at capacity, please retry later"));
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> validationErrors() {
+        return handler.handleValidationExceptions(validationException);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> unexpectedException() {
+        return handler.handleGeneralException(new IllegalStateException("boom"));
+    }
+
+    private static ResponseEntity<Map<String, String>> legacy() {
+        Exception cause = new Exception("Invalid amount");
+        Exception wrapped = new Exception("Failed to create mock payment: " + cause.getMessage(), cause);
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Payment Error");
+        error.put("message", wrapped.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+}
@@ -0,0 +1,70 @@
+package com.apm.poc.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.id.SnowflakeIdGenerator;
+import com.apm.poc.service.MockPayPalService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The mock provider's create and execute paths, including payment ID and token generation.
+ *
+ * Logging is raised to WARN so the console isn't the bottleneck; the argument
+ * building and level checks of the INFO statements are still measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MockPayPalServiceBenchmark {
+
+    private MockPayPalService service;
+    private PaymentRequest request;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("com.apm.poc")).setLevel(Level.WARN);
+        service = new MockPayPalService(new SnowflakeIdGenerator(0, 16, Instant.parse("2025-01-01T00:00:00Z")));
+        request = PaymentRequest.builder()
+                .userEmail("customer@example.com")
+                .description("Order #1001")
+                .amount(new BigDecimal("49.99"))
+                .currency("USD")
+                .orderId("ORDER-1001")
+                .build();
+    }
+
+    @Benchmark
+    public PaymentResponse createPayment() {
+        return service.createPayment(request);
+    }
+
+    @Benchmark
+    public PaymentResponse executePayment() {
+        return service.executePayment("MOCK-PAY-1A2B3C4D", "MOCK-PAYER-123");
+    }
+
+    @Benchmark
+    public PaymentResponse createAndExecute() {
+        PaymentResponse created = service.createPayment(request);
+        return service.executePayment(created.getPaymentId(), "MOCK-PAYER-123");
+    }
+}
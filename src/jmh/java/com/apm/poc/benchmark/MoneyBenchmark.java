@@ -0,0 +1,79 @@
+package com.apm.poc.benchmark;
+
+import com.apm.poc.money.CurrencyUnit;
+import com.apm.poc.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Amount handling on the create and details paths: validating the request amount,
+ * formatting it for the provider and reading a provider total back into minor units.
+ *
+ * legacy* is the previous BigDecimal code (doubleValue check, setScale(2) whatever the currency,
+ * Currency.getInstance per conversion); money* does the same with Money and CurrencyUnit.
+ * Both start from a freshly parsed BigDecimal, as a deserialized request would.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    @Param({"USD", "JPY"})
+    private String currency;
+
+    private String requestAmount;
+    private String providerTotal;
+
+    @Setup
+    public void setUp() {
+        requestAmount = "USD".equals(currency) ? "49.99" : "4999";
+        providerTotal = Money.parse(requestAmount, CurrencyUnit.of(currency)).toPlainString();
+    }
+
+    @Benchmark
+    public String legacyCreate() {
+        BigDecimal amount = new BigDecimal(requestAmount);
+        if (amount.doubleValue() <= 0) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).toString();
+    }
+
+    @Benchmark
+    public String moneyCreate() {
+        Money amount = Money.of(new BigDecimal(requestAmount), CurrencyUnit.of(currency));
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("Invalid amount");
+        }
+        return amount.toPlainString();
+    }
+
+    @Benchmark
+    public long legacyDetails() {
+        BigDecimal amount = new BigDecimal(providerTotal);
+        int fractionDigits = Math.max(Currency.getInstance(currency).getDefaultFractionDigits(), 0);
+        return amount.setScale(fractionDigits, RoundingMode.HALF_UP).movePointRight(fractionDigits).longValueExact();
+    }
+
+    @Benchmark
+    public long moneyDetails() {
+        return Money.parse(providerTotal, CurrencyUnit.of(currency)).getMinorUnits();
+    }
+}
@@ -0,0 +1,125 @@
+package com.apm.poc.benchmark;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paypal.api.payments.Amount;
+import com.paypal.api.payments.Links;
+import com.paypal.api.payments.Payer;
+import com.paypal.api.payments.PayerInfo;
+import com.paypal.api.payments.Payment;
+import com.paypal.api.payments.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing the GET /api/payment/{paymentId} response:
+ * the PayPal SDK Payment graph we used to return versus the lean PaymentDetails.
+ *
+ * Run with -prof gc to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentDetailsSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Payment sdkPayment;
+    private PaymentDetails paymentDetails;
+
+    @Setup
+    public void setUp() {
+        // Same Jackson setup Spring Boot uses for controller responses
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                // Payment.getClientCredential() reads SDK config from the classpath and fails outside PayPal's
+                // own setup; ignore it so we measure the payment graph itself
+                .mixIn(Payment.class, IgnoreClientCredential.class)
+                .build();
+
+        sdkPayment = samplePayment();
+        paymentDetails = PaymentDetails.builder()
+                .paymentId("PAYID-MOCK-0001")
+                .provider("paypal")
+                .state("approved")
+                .amountMinor(1000L)
+                .currency("USD")
+                .payerReference("MOCK-PAYER-123")
+                .createTime(Instant.parse("2025-12-29T10:00:00Z"))
+                .updateTime(Instant.parse("2025-12-29T10:01:00Z"))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] sdkPayment() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(sdkPayment);
+    }
+
+    @Benchmark
+    public byte[] paymentDetails() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(paymentDetails);
+    }
+
+    /**
+     * Mirrors the object MockPayPalService used to return
+     */
+    private static Payment samplePayment() {
+        Payment payment = new Payment();
+        payment.setId("PAYID-MOCK-0001");
+        payment.setState("approved");
+        payment.setIntent("sale");
+        payment.setCreateTime("2025-12-29T10:00:00Z");
+        payment.setUpdateTime("2025-12-29T10:01:00Z");
+
+        PayerInfo payerInfo = new PayerInfo();
+        payerInfo.setEmail("mock-user@example.com");
+        payerInfo.setFirstName("Mock");
+        payerInfo.setLastName("User");
+        payerInfo.setPayerId("MOCK-PAYER-123");
+        Payer payer = new Payer();
+        payer.setPaymentMethod("paypal");
+        payer.setStatus("VERIFIED");
+        payer.setPayerInfo(payerInfo);
+        payment.setPayer(payer);
+
+        Amount amount = new Amount();
+        amount.setCurrency("USD");
+        amount.setTotal("10.00");
+        Transaction transaction = new Transaction();
+        transaction.setAmount(amount);
+        transaction.setDescription("Mock payment transaction");
+        payment.setTransactions(Collections.singletonList(transaction));
+
+        Links approvalLink = new Links();
+        approvalLink.setHref("http://localhost:8080/mock-paypal-approval?token=MOCK-TOKEN");
+        approvalLink.setRel("approval_url");
+        approvalLink.setMethod("REDIRECT");
+        Links selfLink = new Links();
+        selfLink.setHref("http://localhost:8080/api/payment/PAYID-MOCK-0001");
+        selfLink.setRel("self");
+        selfLink.setMethod("GET");
+        payment.setLinks(Arrays.asList(approvalLink, selfLink));
+        return payment;
+    }
+
+    @JsonIgnoreProperties("clientCredential")
+    private abstract static class IgnoreClientCredential {
+    }
+}
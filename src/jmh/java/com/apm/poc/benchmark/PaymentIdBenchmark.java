@@ -0,0 +1,65 @@
+package com.apm.poc.benchmark;
+
+import com.apm.poc.id.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payment ID generation: the previous random UUID prefix scheme against the Snowflake generator,
+ * single-threaded and with 8 threads sharing one generator.
+ *
+ * UUID.randomUUID() draws from a shared SecureRandom and builds a 36-char string only to cut it to 8;
+ * the Snowflake generator is a CAS on a per-shard counter plus one char[] for the encoding.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentIdBenchmark {
+
+    private static final String PREFIX = "MOCK-PAY-";
+
+    private final SnowflakeIdGenerator generator =
+            new SnowflakeIdGenerator(0, SnowflakeIdGenerator.MAX_SHARDS, Instant.parse("2025-01-01T00:00:00Z"));
+
+    @Benchmark
+    public String legacyUuidPrefix() {
+        return PREFIX + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+
+    @Benchmark
+    public long snowflakeLong() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public String snowflakeString() {
+        return generator.nextId(PREFIX);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyUuidPrefixContended() {
+        return PREFIX + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeStringContended() {
+        return generator.nextId(PREFIX);
+    }
+}
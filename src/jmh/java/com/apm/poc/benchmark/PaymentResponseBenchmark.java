@@ -0,0 +1,64 @@
+package com.apm.poc.benchmark;
+
+import com.apm.poc.dto.PaymentResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building PaymentResponse through its static factories, alone and followed by
+ * the JSON serialization the controller performs for create and success responses.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentResponseBenchmark {
+
+    private static final String PAYMENT_ID = "MOCK-PAY-1A2B3C4D";
+    private static final String APPROVAL_URL =
+            "http://localhost:8080/mock-paypal-approval?token=MOCK-TOKEN-5E6F7A8B&paymentId=" + PAYMENT_ID;
+    private static final String ORDER_ID = "ORDER-1001";
+
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        // Same Jackson setup Spring Boot uses for controller responses
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public PaymentResponse buildSuccess() {
+        return PaymentResponse.success(PAYMENT_ID, APPROVAL_URL, ORDER_ID);
+    }
+
+    @Benchmark
+    public PaymentResponse buildApproved() {
+        return PaymentResponse.approved(PAYMENT_ID, ORDER_ID);
+    }
+
+    @Benchmark
+    public byte[] serializeSuccess() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(PaymentResponse.success(PAYMENT_ID, APPROVAL_URL, ORDER_ID));
+    }
+
+    @Benchmark
+    public byte[] serializeApproved() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(PaymentResponse.approved(PAYMENT_ID, ORDER_ID));
+    }
+}
@@ -0,0 +1,125 @@
+package com.apm.poc.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load test, given as --key=value
+ */
+final class LoadTestOptions {
+
+    enum Mode {
+        // Fixed concurrency, each worker waits for its response before sending the next request
+        CLOSED,
+        // Fixed arrival rate regardless of response times; latency includes time spent queued
+        OPEN
+    }
+
+    String profiles = "mock";
+    // Target an already running instance instead of booting one
+    String url;
+    Mode mode = Mode.CLOSED;
+    int concurrency = 16;
+    int rate = 200;
+    int maxInFlight = 1000;
+    Duration warmup = Duration.ofSeconds(10);
+    Duration duration = Duration.ofSeconds(30);
+    Map<Operation, Integer> mix = parseMix("create=40,execute=20,details=40");
+    String appLogging = "WARN";
+    String hgrmDir;
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getValue();
+            switch (entry.getKey()) {
+                case "profiles":
+                    options.profiles = value;
+                    break;
+                case "url":
+                    options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "mode":
+                    options.mode = Mode.valueOf(value.toUpperCase());
+                    break;
+                case "concurrency":
+                    options.concurrency = positive(entry.getKey(), value);
+                    break;
+                case "rate":
+                    options.rate = positive(entry.getKey(), value);
+                    break;
+                case "max-in-flight":
+                    options.maxInFlight = positive(entry.getKey(), value);
+                    break;
+                case "warmup":
+                    options.warmup = DurationStyle.detectAndParse(value);
+                    break;
+                case "duration":
+                    options.duration = DurationStyle.detectAndParse(value);
+                    break;
+                case "mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "app-logging":
+                    options.appLogging = value;
+                    break;
+                case "hgrm-dir":
+                    options.hgrmDir = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + entry.getKey());
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Parses weights such as create=40,execute=20,details=40
+     */
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Mix weight must not be negative: " + part);
+            }
+            mix.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix must contain at least one positive weight");
+        }
+        return mix;
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        String load = mode == Mode.OPEN ? rate + " req/s (max in flight " + maxInFlight + ")" : concurrency + " workers";
+        return "mode=" + mode.name().toLowerCase() + ", load=" + load + ", warmup=" + warmup.getSeconds() + "s"
+                + ", duration=" + duration.getSeconds() + "s, mix=" + mix;
+    }
+}
@@ -0,0 +1,20 @@
+package com.apm.poc.loadtest;
+
+/**
+ * Endpoints driven by the load test
+ */
+enum Operation {
+    CREATE("POST /api/payment/create"),
+    EXECUTE("GET  /api/payment/success"),
+    DETAILS("GET  /api/payment/{paymentId}");
+
+    private final String endpoint;
+
+    Operation(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,198 @@
+package com.apm.poc.loadtest;
+
+import com.apm.poc.id.SnowflakeIdGenerator;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency stress test of payment ID generation.
+ *
+ * N threads start together and each draw M IDs from one shared SnowflakeIdGenerator; the run fails
+ * if any ID is repeated across threads, if a thread ever sees its IDs go backwards (numerically or
+ * as strings), or if an ID's timestamp is outside the run. The previous 8-hex-char random scheme is
+ * run the same way for comparison: with 32 bits of randomness it collides after roughly 77k IDs.
+ *
+ * Run with:
+ *   mvn -Pbenchmarks test-compile exec:exec@id-stress -Did.args="--threads=32 --ids=200000"
+ *
+ * Options: --threads=16, --ids=100000 (per thread), --shards=16, --legacy=true
+ */
+public final class PaymentIdStressTest {
+
+    private static final String PREFIX = "MOCK-PAY-";
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = 16;
+        int idsPerThread = 100_000;
+        int shards = SnowflakeIdGenerator.MAX_SHARDS;
+        boolean legacy = true;
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected --key=value: " + arg);
+            }
+            switch (pair[0]) {
+                case "threads":
+                    threads = Integer.parseInt(pair[1]);
+                    break;
+                case "ids":
+                    idsPerThread = Integer.parseInt(pair[1]);
+                    break;
+                case "shards":
+                    shards = Integer.parseInt(pair[1]);
+                    break;
+                case "legacy":
+                    legacy = Boolean.parseBoolean(pair[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        boolean passed = snowflake(threads, idsPerThread, shards);
+        if (legacy) {
+            legacyScheme(threads, idsPerThread);
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean snowflake(int threads, int idsPerThread, int shards) throws InterruptedException {
+        SnowflakeIdGenerator generator =
+                new SnowflakeIdGenerator(0, shards, Instant.parse("2025-01-01T00:00:00Z"));
+        long[][] ids = new long[threads][idsPerThread];
+        int[] orderViolations = new int[threads];
+
+        long startMillis = System.currentTimeMillis();
+        long elapsed = run(threads, thread -> () -> {
+            long[] own = ids[thread];
+            String previous = "";
+            for (int i = 0; i < own.length; i++) {
+                // Alternate numeric and string form; both must advance
+                if ((i & 1) == 0) {
+                    own[i] = generator.nextId();
+                } else {
+                    String id = generator.nextId(PREFIX);
+                    if (id.compareTo(previous) <= 0) {
+                        orderViolations[thread]++;
+                    }
+                    previous = id;
+                    own[i] = decode(id.substring(PREFIX.length()));
+                }
+                if (i > 0 && own[i] <= own[i - 1]) {
+                    orderViolations[thread]++;
+                }
+            }
+        });
+        long endMillis = System.currentTimeMillis();
+
+        long[] all = new long[threads * idsPerThread];
+        int timestampViolations = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(ids[t], 0, all, t * idsPerThread, idsPerThread);
+        }
+        Arrays.sort(all);
+        int duplicates = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (i > 0 && all[i] == all[i - 1]) {
+                duplicates++;
+            }
+            long timestamp = generator.timestampOf(all[i]);
+            // Sequence exhaustion may borrow a few milliseconds ahead of the clock
+            if (timestamp < startMillis || timestamp > endMillis + 1000) {
+                timestampViolations++;
+            }
+        }
+        int orderViolationTotal = Arrays.stream(orderViolations).sum();
+
+        System.out.printf("%nSnowflake: %d threads x %,d IDs, %d shards%n", threads, idsPerThread, shards);
+        System.out.printf("  %,d IDs in %d ms (%,.0f IDs/s)%n", all.length,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), all.length / (elapsed / 1e9));
+        System.out.printf("  duplicates: %d, per-thread order violations: %d, timestamps out of range: %d%n",
+                duplicates, orderViolationTotal, timestampViolations);
+
+        boolean passed = duplicates == 0 && orderViolationTotal == 0 && timestampViolations == 0;
+        System.out.println(passed ? "  PASSED" : "  FAILED");
+        return passed;
+    }
+
+    private static void legacyScheme(int threads, int idsPerThread) throws InterruptedException {
+        String[][] ids = new String[threads][idsPerThread];
+        Supplier<String> scheme = () -> PREFIX + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+
+        long elapsed = run(threads, thread -> () -> {
+            String[] own = ids[thread];
+            for (int i = 0; i < own.length; i++) {
+                own[i] = scheme.get();
+            }
+        });
+
+        Set<String> seen = new HashSet<>(threads * idsPerThread * 2);
+        int duplicates = 0;
+        for (String[] own : ids) {
+            for (String id : own) {
+                if (!seen.add(id)) {
+                    duplicates++;
+                }
+            }
+        }
+        long total = (long) threads * idsPerThread;
+        System.out.printf("%nLegacy UUID prefix: %d threads x %,d IDs%n", threads, idsPerThread);
+        System.out.printf("  %,d IDs in %d ms (%,.0f IDs/s)%n", total,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), total / (elapsed / 1e9));
+        System.out.printf("  duplicates: %d (not sortable)%n", duplicates);
+    }
+
+    /**
+     * Starts all workers together and returns the wall time in nanoseconds until the last one finishes
+     */
+    private static long run(int threads, IntFunction<Runnable> worker) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Runnable body = worker.apply(t);
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    body.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "id-stress-" + t);
+            thread.start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Crockford base32 back to the numeric ID
+     */
+    private static long decode(String encoded) {
+        String alphabet = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+        long value = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            value = value << 5 | alphabet.indexOf(encoded.charAt(i));
+        }
+        return value;
+    }
+
+    private PaymentIdStressTest() {
+    }
+}
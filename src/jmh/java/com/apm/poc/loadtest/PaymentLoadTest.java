@@ -0,0 +1,284 @@
+package com.apm.poc.loadtest;
+
+import com.apm.poc.ApmApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test of the payment API against the mock providers.
+ *
+ * Boots the application in-process on a random port (or targets --url) under a mock profile,
+ * or under paypal-standin to run the real PayPalService against the local PayPal stand-in,
+ * and drives a weighted mix of create, execute and details calls, then prints per-endpoint
+ * throughput and HdrHistogram latency percentiles for the measurement window.
+ *
+ * Closed loop: --concurrency workers each wait for their response before sending the next.
+ * Open loop: requests are sent at --rate per second whatever the response times; latency is
+ * measured from the intended send time so queueing delay is not hidden (coordinated omission).
+ *
+ * Run with:
+ *   mvn -Pbenchmarks test-compile exec:exec@load-test -Dload.args="--profiles=mock --mode=open --rate=500"
+ *
+ * Options: --profiles=mock|mock-applepay|mock,mock-applepay|paypal-standin, --url=http://host:port, --mode=closed|open,
+ * --concurrency=16, --rate=200, --max-in-flight=1000, --warmup=10s, --duration=30s,
+ * --mix=create=40,execute=20,details=40, --app-logging=WARN, --hgrm-dir=target/load-test
+ */
+public final class PaymentLoadTest {
+
+    private static final Pattern PAYMENT_ID = Pattern.compile("\"paymentId\"\\s*:\\s*\"([^\"]+)\"");
+    // Recently created payment IDs that execute and details calls pick from
+    private static final int ID_POOL_SIZE = 4096;
+    private static final int PAYERS = 10_000;
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] weightedOperations;
+
+    private final AtomicReferenceArray<String> paymentIds = new AtomicReferenceArray<>(ID_POOL_SIZE);
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong orderSequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+
+    // Requests whose intended start falls before this are warmup and not recorded
+    private volatile long measureStartNanos;
+
+    private PaymentLoadTest(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+        List<Operation> weighted = new ArrayList<>();
+        options.mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        this.weightedOperations = weighted.toArray(new Operation[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        String baseUrl = options.url;
+        if (baseUrl == null) {
+            application = boot(options);
+            baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            new PaymentLoadTest(options, baseUrl).run();
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext boot(LoadTestOptions options) throws IOException {
+        if (!options.profiles.contains("mock") && !options.profiles.contains("paypal-standin")) {
+            throw new IllegalArgumentException("Refusing to load test real providers, "
+                    + "use a mock profile, paypal-standin or --url");
+        }
+        Path journalDirectory = Files.createTempDirectory("apm-load-test-journal");
+        System.out.println("Starting application with profiles " + options.profiles);
+        // Passed as command line arguments so they win over the profile's own logging levels
+        return new SpringApplicationBuilder(ApmApplication.class)
+                .profiles(options.profiles.split(","))
+                .run(
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--payment.journal.directory=" + journalDirectory,
+                        // Console logging per request would dominate the measurement
+                        "--logging.level.com.apm.poc=" + options.appLogging,
+                        "--logging.level.com.paypal=WARN",
+                        // Provider executors stop after Tomcat, which would warn about each pool thread
+                        "--logging.level.org.apache.catalina.loader=ERROR");
+    }
+
+    private void run() throws Exception {
+        System.out.println("Load testing " + baseUrl + " with " + options);
+        // Seed the ID pool so execute and details have something to work with from the start
+        send(Operation.CREATE, System.nanoTime()).join();
+
+        long start = System.nanoTime();
+        measureStartNanos = start + options.warmup.toNanos();
+        long end = measureStartNanos + options.duration.toNanos();
+        if (options.mode == LoadTestOptions.Mode.OPEN) {
+            runOpenLoop(start, end);
+        } else {
+            runClosedLoop(end);
+        }
+        report(System.nanoTime() - measureStartNanos);
+    }
+
+    private void runClosedLoop(long end) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+            Thread worker = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    send(nextOperation(), System.nanoTime()).join();
+                }
+            }, "load-worker-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void runOpenLoop(long start, long end) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        AtomicInteger inFlight = new AtomicInteger();
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = nextOperation();
+            if (inFlight.get() >= options.maxInFlight) {
+                // The server can't keep up; count it rather than queueing without bound in the client
+                if (intended >= measureStartNanos) {
+                    stats.get(operation).drop();
+                }
+                continue;
+            }
+            inFlight.incrementAndGet();
+            send(operation, intended).whenComplete((ignored, error) -> inFlight.decrementAndGet());
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private Operation nextOperation() {
+        return weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)];
+    }
+
+    /**
+     * Sends one request; latency is measured from intendedStartNanos
+     */
+    private CompletableFuture<Void> send(Operation operation, long intendedStartNanos) {
+        String paymentId = randomPaymentId();
+        if (paymentId == null) {
+            operation = Operation.CREATE;
+        }
+        Operation sent = operation;
+        return httpClient.sendAsync(buildRequest(sent, paymentId), HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    long latency = System.nanoTime() - intendedStartNanos;
+                    boolean success = error == null && response.statusCode() < 400;
+                    if (intendedStartNanos >= measureStartNanos) {
+                        stats.get(sent).record(latency, success);
+                    }
+                    if (success && sent == Operation.CREATE) {
+                        rememberPaymentId(response.body());
+                    }
+                    return null;
+                });
+    }
+
+    private HttpRequest buildRequest(Operation operation, String paymentId) {
+        switch (operation) {
+            case CREATE:
+                long order = orderSequence.incrementAndGet();
+                // Spread over many payers so the per-payer rate limit doesn't cap throughput
+                String body = "{\"userEmail\":\"load-test-" + order % PAYERS + "@example.com\","
+                        + "\"description\":\"Load test payment\","
+                        + "\"amount\":10.00,\"currency\":\"USD\",\"orderId\":\"LOAD-" + runId + "-"
+                        + order + "\"}";
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/payment/create"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            case EXECUTE:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/payment/success?paymentId=" + paymentId
+                        + "&PayerID=LOAD-PAYER")).GET().build();
+            case DETAILS:
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/payment/" + paymentId)).GET().build();
+            default:
+                throw new IllegalStateException("Unknown operation " + operation);
+        }
+    }
+
+    private void rememberPaymentId(String responseBody) {
+        Matcher matcher = PAYMENT_ID.matcher(responseBody);
+        if (matcher.find()) {
+            long slot = createdCount.getAndIncrement();
+            paymentIds.set((int) (slot % ID_POOL_SIZE), matcher.group(1));
+        }
+    }
+
+    private String randomPaymentId() {
+        long created = Math.min(createdCount.get(), ID_POOL_SIZE);
+        if (created == 0) {
+            return null;
+        }
+        return paymentIds.get(ThreadLocalRandom.current().nextInt((int) created));
+    }
+
+    private void report(long measuredNanos) throws IOException {
+        double seconds = measuredNanos / 1e9;
+        PrintStream out = System.out;
+        out.println();
+        out.printf("Measured %.1f s, latency in ms%n", seconds);
+        out.printf("%-32s %9s %7s %8s %10s %8s %8s %8s %8s %8s%n",
+                "Endpoint", "Requests", "Errors", "Dropped", "Req/s", "p50", "p90", "p99", "p99.9", "max");
+        for (Operation operation : Operation.values()) {
+            EndpointStats endpoint = stats.get(operation);
+            if (endpoint.count() == 0 && endpoint.dropped() == 0) {
+                continue;
+            }
+            out.printf("%-32s %9d %7d %8d %10.1f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                    operation.endpoint(), endpoint.count(), endpoint.errors(), endpoint.dropped(),
+                    endpoint.count() / seconds, endpoint.percentileMillis(50), endpoint.percentileMillis(90),
+                    endpoint.percentileMillis(99), endpoint.percentileMillis(99.9), endpoint.maxMillis());
+        }
+
+        if (options.hgrmDir != null) {
+            Path directory = Files.createDirectories(Paths.get(options.hgrmDir));
+            for (Operation operation : Operation.values()) {
+                Path file = directory.resolve(operation.name().toLowerCase() + ".hgrm");
+                try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file))) {
+                    stats.get(operation).writePercentileDistribution(hgrm);
+                }
+            }
+            out.println("Percentile distributions written to " + directory.toAbsolutePath());
+        }
+    }
+}
@@ -2,12 +2,17 @@ package com.apm.poc;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class ApmApplication {
 
+    // Startup steps kept for GET /actuator/startup, one or more per bean
+    private static final int STARTUP_STEPS = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(ApmApplication.class, args);
+        SpringApplication application = new SpringApplication(ApmApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 }
-
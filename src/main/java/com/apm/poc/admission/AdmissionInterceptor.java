@@ -0,0 +1,34 @@
+package com.apm.poc.admission;
+
+import com.apm.poc.config.AdmissionProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Load shedding and merchant / API key limits, applied before the request body is read
+ * Payer limits need the body and are applied by the controller
+ */
+@Component
+@RequiredArgsConstructor
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private final AdmissionService admissionService;
+    private final AdmissionProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async results are dispatched back through the interceptors; only the original request is admitted
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        admissionService.checkLoad();
+        admissionService.admitClient(request.getHeader(properties.getMerchantHeader()),
+                request.getHeader(properties.getApiKeyHeader()));
+        return true;
+    }
+}
@@ -0,0 +1,176 @@
+package com.apm.poc.admission;
+
+import com.apm.poc.config.AdmissionProperties;
+import com.apm.poc.exception.AdmissionRejectedException;
+import com.apm.poc.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether a request may proceed, before it reaches a provider
+ *
+ * Global: once provider calls queued or running pass maxInFlight, new work is shed, since
+ * it would only wait in the executor queues and push every client's latency up.
+ * Per client: token buckets by merchant header, API key header and payer email; each
+ * identifier that is present must have a permit. Rejections are cheap and come with the
+ * time until the client would be admitted again.
+ *
+ * payment.admission.rejected{scope, reason}: scope merchant, api_key, payer or global
+ * payment.admission.keys{scope}: live buckets
+ */
+@Service
+@Slf4j
+public class AdmissionService {
+
+    private static final String MERCHANT = "merchant";
+    private static final String API_KEY = "api_key";
+    private static final String PAYER = "payer";
+    private static final String GLOBAL = "global";
+
+    private final AdmissionProperties properties;
+    private final ProviderLoad providerLoad;
+    private final RateLimiter merchants;
+    private final RateLimiter apiKeys;
+    private final RateLimiter payers;
+    private final Counter overloadRejections;
+    private final Map<String, Counter> rateLimitRejections = new HashMap<>();
+
+    public AdmissionService(AdmissionProperties properties, ProviderLoad providerLoad, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.providerLoad = providerLoad;
+        long idleNanos = properties.getIdleTimeout().toNanos();
+        this.merchants = new RateLimiter(MERCHANT, properties.getMerchant(), properties.getMaxKeys(), idleNanos);
+        this.apiKeys = new RateLimiter(API_KEY, properties.getApiKey(), properties.getMaxKeys(), idleNanos);
+        this.payers = new RateLimiter(PAYER, properties.getPayer(), properties.getMaxKeys(), idleNanos);
+
+        this.overloadRejections = rejectionCounter(meterRegistry, GLOBAL, "overloaded");
+        for (RateLimiter limiter : new RateLimiter[]{merchants, apiKeys, payers}) {
+            rateLimitRejections.put(limiter.getScope(), rejectionCounter(meterRegistry, limiter.getScope(), "rate_limited"));
+            Gauge.builder("payment.admission.keys", limiter, RateLimiter::size)
+                    .description("Clients with a live rate limit bucket")
+                    .tag("scope", limiter.getScope())
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Sheds the request when providers already have more work than maxInFlight
+     */
+    public void checkLoad() {
+        int limit = properties.getMaxInFlight();
+        if (!properties.isEnabled() || limit <= 0) {
+            return;
+        }
+        int load = providerLoad.get();
+        if (load >= limit) {
+            overloadRejections.increment();
+            throw new AdmissionRejectedException(ErrorCode.OVERLOADED,
+                    "Payment service is overloaded, please retry later", properties.getOverloadRetryAfter());
+        }
+    }
+
+    /**
+     * Charges one request to the merchant and API key, either of which may be null
+     */
+    public void admitClient(String merchantId, String apiKey) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        acquire(merchants, merchantId, 1);
+        acquire(apiKeys, apiKey, 1);
+    }
+
+    /**
+     * Charges one provider call made on behalf of an already admitted request (e.g. each lookup of a
+     * bulk status request) to the merchant and API key, waiting for the permit rather than rejecting,
+     * so a long request is paced at the client's rate instead of failing part way through
+     */
+    public void awaitClient(String merchantId, String apiKey) throws InterruptedException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        await(merchants, merchantId);
+        await(apiKeys, apiKey);
+    }
+
+    /**
+     * Charges payment creations to their payers; all of a batch is admitted or none of it
+     * A payer is charged at most a full bucket, so a batch with more items for one payer than its
+     * burst (a subscription run) is admitted once the bucket is full instead of never
+     */
+    public void admitPayers(Collection<String> userEmails) {
+        if (!properties.isEnabled() || !payers.isEnabled()) {
+            return;
+        }
+        Map<String, Long> perPayer = userEmails.stream()
+                .filter(email -> email != null && !email.isBlank())
+                .collect(Collectors.groupingBy(email -> email.trim().toLowerCase(), Collectors.counting()));
+        int maxCharge = Math.max(1, properties.getPayer().getBurst());
+        Map<String, Integer> charged = new HashMap<>();
+        try {
+            perPayer.forEach((email, count) -> {
+                int permits = (int) Math.min(count, maxCharge);
+                acquire(payers, email, permits);
+                charged.put(email, permits);
+            });
+        } catch (AdmissionRejectedException e) {
+            // Payers charged before the rejected one get their permits back
+            charged.forEach(payers::release);
+            throw e;
+        }
+    }
+
+    public void admitPayer(String userEmail) {
+        if (!properties.isEnabled() || !payers.isEnabled() || userEmail == null || userEmail.isBlank()) {
+            return;
+        }
+        acquire(payers, userEmail.trim().toLowerCase(), 1);
+    }
+
+    private void acquire(RateLimiter limiter, String key, int permits) {
+        if (key == null || key.isBlank() || !limiter.isEnabled()) {
+            return;
+        }
+        long waitNanos = limiter.tryAcquire(key, permits);
+        if (waitNanos > 0) {
+            rateLimitRejections.get(limiter.getScope()).increment();
+            log.debug("Rate limited {} request, retry in {} ms", limiter.getScope(),
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            throw new AdmissionRejectedException(ErrorCode.RATE_LIMITED,
+                    "Too many requests for this " + limiter.getScope().replace('_', ' ') + ", please slow down",
+                    Duration.ofNanos(waitNanos));
+        }
+    }
+
+    private static void await(RateLimiter limiter, String key) throws InterruptedException {
+        if (key == null || key.isBlank() || !limiter.isEnabled()) {
+            return;
+        }
+        long waitNanos;
+        while ((waitNanos = limiter.tryAcquire(key, 1)) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String scope, String reason) {
+        return Counter.builder("payment.admission.rejected")
+                .description("Requests rejected before reaching a provider")
+                .tag("scope", scope)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,34 @@
+package com.apm.poc.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provider calls submitted and not yet finished, queued or running, across all providers
+ */
+@Component
+public class ProviderLoad {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ProviderLoad(MeterRegistry meterRegistry) {
+        Gauge.builder("payment.provider.load", inFlight, AtomicInteger::get)
+                .description("Provider calls queued or running across all providers")
+                .register(meterRegistry);
+    }
+
+    public void started() {
+        inFlight.incrementAndGet();
+    }
+
+    public void finished() {
+        inFlight.decrementAndGet();
+    }
+
+    public int get() {
+        return inFlight.get();
+    }
+}
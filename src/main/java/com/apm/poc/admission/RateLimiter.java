@@ -0,0 +1,88 @@
+package com.apm.poc.admission;
+
+import com.apm.poc.config.AdmissionProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for one scope (merchant, API key, payer), created on first use per key
+ *
+ * Buckets live in a ConcurrentHashMap, whose per-bin locking only applies when a key is
+ * first seen; admitting against an existing bucket is a lookup plus a CAS. Idle buckets are
+ * swept inline by whichever caller first notices a sweep is due, so no background thread is
+ * needed. When maxKeys distinct keys are live, further new keys share one overflow bucket,
+ * which bounds memory when clients rotate keys.
+ */
+public class RateLimiter {
+
+    private final String scope;
+    private final double rate;
+    private final int burst;
+    private final int maxKeys;
+    private final long idleNanos;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong nextSweepNanos;
+
+    public RateLimiter(String scope, AdmissionProperties.Limit limit, int maxKeys, long idleNanos) {
+        long now = System.nanoTime();
+        this.scope = scope;
+        this.rate = limit.getRate();
+        this.burst = limit.getBurst();
+        this.maxKeys = maxKeys;
+        this.idleNanos = idleNanos;
+        this.overflow = new TokenBucket(rate, burst, now);
+        this.nextSweepNanos = new AtomicLong(now + idleNanos);
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public boolean isEnabled() {
+        return rate > 0;
+    }
+
+    /**
+     * @return 0 when admitted, otherwise nanoseconds until the key has the permits again
+     */
+    public long tryAcquire(String key, int permits) {
+        long now = System.nanoTime();
+        long sweepAt = nextSweepNanos.get();
+        if (now - sweepAt >= 0 && nextSweepNanos.compareAndSet(sweepAt, now + idleNanos / 2)) {
+            sweep(now);
+        }
+        return bucket(key, now).tryAcquire(permits, now);
+    }
+
+    /**
+     * Returns permits taken by tryAcquire for the key, e.g. when the rest of a batch was rejected
+     */
+    public void release(String key, int permits) {
+        long now = System.nanoTime();
+        bucket(key, now).release(permits, now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private TokenBucket bucket(String key, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(rate, burst, now));
+    }
+
+    private void sweep(long now) {
+        // A permit taken from a bucket while it is removed is forgotten, at most one
+        // extra permit for a client that was idle for the whole idle timeout
+        buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleNanos));
+    }
+}
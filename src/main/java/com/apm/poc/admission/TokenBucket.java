@@ -0,0 +1,64 @@
+package com.apm.poc.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as a single theoretical arrival time (GCRA)
+ *
+ * Each permit pushes the arrival time one emission interval (1 / rate) ahead; a request is
+ * admitted while that time stays within burst intervals of now. This is exactly a token bucket
+ * of size burst refilled at rate, without a refill step or a second field to keep consistent.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong arrival;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.arrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes the permits if available
+     *
+     * @return 0 when admitted, otherwise nanoseconds until the permits would be available
+     */
+    public long tryAcquire(int permits, long nowNanos) {
+        long cost = intervalNanos * permits;
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos) + cost;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back permits taken by tryAcquire that ended up unused, never beyond a full bucket
+     */
+    public void release(int permits, long nowNanos) {
+        long cost = intervalNanos * permits;
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current - cost, nowNanos);
+            if (next >= current || arrival.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Full and unused for at least the given time, so a fresh bucket would behave the same
+     */
+    public boolean isIdle(long nowNanos, long idleNanos) {
+        return nowNanos - arrival.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,237 @@
+package com.apm.poc.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded in-memory cache of asynchronous results with per-entry TTL.
+ *
+ * Concurrent lookups for the same key share a single in-flight load: only the first caller
+ * invokes the loader, everyone else waits on the same future. Failed loads are never cached,
+ * so the next caller retries. When the cache grows past its bound the oldest entries are
+ * evicted first.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlightCache<K, V> {
+
+    /** TTL meaning "keep until evicted by the size bound" */
+    public static final Duration NO_EXPIRY = Duration.ofNanos(Long.MAX_VALUE);
+
+    private static final int CLEANUP_INTERVAL = 1024;
+
+    private final int maxEntries;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    // Insertion order, used for oldest-first eviction; may contain entries that are already gone
+    private final ConcurrentLinkedQueue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedEntries = new AtomicInteger();
+    private final AtomicInteger insertsSinceCleanup = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SingleFlightCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached or in-flight value for the key, or starts a new load.
+     *
+     * @param loader starts the load; only invoked on a miss
+     * @param ttl    how long a successfully loaded value stays cached, {@link Duration#ZERO} to only
+     *               share the in-flight call, {@link #NO_EXPIRY} to keep it until evicted
+     */
+    public CompletableFuture<V> getOrLoad(K key, Supplier<CompletableFuture<V>> loader, Function<V, Duration> ttl) {
+        while (true) {
+            long now = System.nanoTime();
+            Entry<K, V> existing = entries.get(key);
+            if (existing != null) {
+                if (!existing.isExpired(now)) {
+                    hits.increment();
+                    return existing.future;
+                }
+                if (entries.remove(key, existing)) {
+                    evictions.increment();
+                }
+            }
+
+            Entry<K, V> created = new Entry<>(key);
+            existing = entries.putIfAbsent(key, created);
+            if (existing != null) {
+                // Lost the race to another loader (or found a stale entry), look again
+                continue;
+            }
+
+            misses.increment();
+            track(created);
+            load(created, loader, ttl);
+            return created.future;
+        }
+    }
+
+    /**
+     * Returns the value if it is cached and already loaded, without triggering a load
+     */
+    public V getIfPresent(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null || entry.isExpired(System.nanoTime()) || !entry.future.isDone()
+                || entry.future.isCompletedExceptionally()) {
+            return null;
+        }
+        return entry.future.join();
+    }
+
+    /**
+     * Whether the key has a cached or in-flight value, without triggering a load
+     */
+    public boolean contains(K key) {
+        Entry<K, V> entry = entries.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    /**
+     * Stores a value directly, replacing any cached or in-flight entry
+     */
+    public void put(K key, V value, Duration ttl) {
+        Entry<K, V> entry = new Entry<>(key);
+        entry.future.complete(value);
+        entry.expireAfter(ttl);
+        if (entry.isExpired(System.nanoTime())) {
+            invalidate(key);
+            return;
+        }
+        entries.put(key, entry);
+        track(entry);
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void load(Entry<K, V> entry, Supplier<CompletableFuture<V>> loader, Function<V, Duration> ttl) {
+        CompletableFuture<V> result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                entries.remove(entry.key, entry);
+                entry.future.completeExceptionally(error);
+                return;
+            }
+            entry.expireAfter(ttl.apply(value));
+            if (entry.isExpired(System.nanoTime())) {
+                entries.remove(entry.key, entry);
+            }
+            entry.future.complete(value);
+        });
+    }
+
+    private void track(Entry<K, V> entry) {
+        insertionOrder.add(entry);
+        queuedEntries.incrementAndGet();
+        if (insertsSinceCleanup.incrementAndGet() >= CLEANUP_INTERVAL) {
+            insertsSinceCleanup.set(0);
+            purgeExpiredHead();
+        }
+        enforceBound();
+    }
+
+    private void enforceBound() {
+        while (entries.size() > maxEntries || queuedEntries.get() > 2 * maxEntries) {
+            Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queuedEntries.decrementAndGet();
+            if (entries.get(oldest.key) != oldest) {
+                // Already replaced or removed, only the queue slot was stale
+                continue;
+            }
+            if (entries.size() > maxEntries) {
+                if (entries.remove(oldest.key, oldest)) {
+                    evictions.increment();
+                }
+            } else {
+                // Queue is full of stale slots but the map is within bounds: keep the live entry
+                insertionOrder.add(oldest);
+                queuedEntries.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drops expired or stale entries from the head of the insertion queue.
+     * Cheap because TTLs roughly follow insertion order.
+     */
+    private void purgeExpiredHead() {
+        long now = System.nanoTime();
+        Entry<K, V> head;
+        while ((head = insertionOrder.peek()) != null) {
+            boolean live = entries.get(head.key) == head;
+            if (live && !head.isExpired(now)) {
+                return;
+            }
+            if (insertionOrder.remove(head)) {
+                queuedEntries.decrementAndGet();
+            }
+            if (live && entries.remove(head.key, head)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        // Stays at "never" while the load is in flight
+        private volatile long expiresAtNanos = Long.MAX_VALUE;
+        private final long createdNanos = System.nanoTime();
+
+        private Entry(K key) {
+            this.key = key;
+        }
+
+        private void expireAfter(Duration ttl) {
+            if (ttl == null || ttl.compareTo(NO_EXPIRY) >= 0) {
+                expiresAtNanos = Long.MAX_VALUE;
+            } else {
+                expiresAtNanos = createdNanos + ttl.toNanos();
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAtNanos != Long.MAX_VALUE && now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.apm.poc.config;
+
+import com.apm.poc.admission.AdmissionInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Admission control on the endpoints that reach a provider
+ * The reactive edition applies it in ReactivePaymentController instead
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+    private final AdmissionProperties properties;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        registry.addInterceptor(admissionInterceptor)
+                .addPathPatterns("/api/payment/**")
+                .excludePathPatterns("/api/payment/health", "/api/payment/cancel");
+    }
+}
@@ -0,0 +1,46 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Per-client rate limits and global load shedding in front of the payment API
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.admission")
+@Data
+public class AdmissionProperties {
+    private boolean enabled = true;
+    private String merchantHeader = "X-Merchant-Id";
+    private String apiKeyHeader = "X-Api-Key";
+    private Limit merchant = new Limit(200, 400);
+    private Limit apiKey = new Limit(200, 400);
+    // Payment creations per PaymentRequest.userEmail
+    private Limit payer = new Limit(5, 20);
+    // Buckets untouched for this long are full again and are dropped
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    // Per scope; beyond this, new keys share one bucket until idle ones are evicted
+    private int maxKeys = 100_000;
+    // Provider calls queued or running across all providers before requests are shed; 0 disables
+    private int maxInFlight = 1000;
+    private Duration overloadRetryAfter = Duration.ofSeconds(1);
+
+    @Data
+    public static class Limit {
+        // Sustained requests per second; 0 disables the limit
+        private double rate;
+        // Requests allowed at once after an idle period
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double rate, int burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+    }
+}
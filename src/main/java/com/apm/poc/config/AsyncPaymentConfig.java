@@ -0,0 +1,78 @@
+package com.apm.poc.config;
+
+import com.apm.poc.admission.ProviderLoad;
+import com.apm.poc.event.PaymentEventPublisher;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.resilience.CircuitBreakerRegistry;
+import com.apm.poc.service.AsyncPaymentServiceInterface;
+import com.apm.poc.service.CachingAsyncPaymentService;
+import com.apm.poc.service.CircuitBreakingAsyncPaymentService;
+import com.apm.poc.service.EventPublishingAsyncPaymentService;
+import com.apm.poc.service.ExecutorAsyncPaymentService;
+import com.apm.poc.service.MeteredPaymentService;
+import com.apm.poc.service.PaymentRouter;
+import com.apm.poc.service.PaymentServiceInterface;
+import com.apm.poc.service.StatefulAsyncPaymentService;
+import com.apm.poc.state.PaymentStateStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles the non-blocking payment stack used by the controller:
+ * details cache -> payment state -> router -> per provider (events -> circuit breaker -> bounded executor -> metrics -> provider)
+ */
+@Configuration
+public class AsyncPaymentConfig {
+
+    @Bean
+    public PaymentRouter paymentRouter(List<PaymentServiceInterface> providers,
+                                       ProviderExecutors providerExecutors,
+                                       PaymentEventPublisher eventPublisher,
+                                       PaymentRoutingProperties routingProperties,
+                                       PaymentStateProperties stateProperties,
+                                       PaymentIndex paymentIndex,
+                                       CircuitBreakerRegistry circuitBreakers,
+                                       ProviderLoad providerLoad,
+                                       MeterRegistry meterRegistry) {
+        List<PaymentRouter.ProviderBinding> bindings = providers.stream()
+                .map(provider -> {
+                    String name = provider.getProviderName();
+                    PaymentServiceInterface metered = new MeteredPaymentService(provider, meterRegistry);
+                    AsyncPaymentServiceInterface service = new ExecutorAsyncPaymentService(metered,
+                            providerExecutors.forProvider(name), providerLoad);
+                    if (circuitBreakers.isEnabled()) {
+                        service = new CircuitBreakingAsyncPaymentService(service, name, circuitBreakers);
+                    }
+                    // With payment state on, declines are published by StatefulAsyncPaymentService once reconciled
+                    service = new EventPublishingAsyncPaymentService(service, name, eventPublisher,
+                            !stateProperties.isEnabled());
+                    return new PaymentRouter.ProviderBinding(provider, service);
+                })
+                .collect(Collectors.toList());
+        return new PaymentRouter(bindings, routingProperties, paymentIndex, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public AsyncPaymentServiceInterface asyncPaymentService(PaymentRouter paymentRouter,
+                                                            PaymentDetailsCacheProperties cacheProperties,
+                                                            PaymentStateProperties stateProperties,
+                                                            PaymentStateStore stateStore,
+                                                            PaymentEventPublisher eventPublisher,
+                                                            MeterRegistry meterRegistry) {
+        AsyncPaymentServiceInterface service = paymentRouter;
+        if (stateProperties.isEnabled()) {
+            service = new StatefulAsyncPaymentService(service, stateStore, eventPublisher, meterRegistry);
+        }
+        if (!cacheProperties.isEnabled()) {
+            return service;
+        }
+        return new CachingAsyncPaymentService(service, cacheProperties.getMaxEntries(),
+                cacheProperties.getPendingTtl(), meterRegistry);
+    }
+}
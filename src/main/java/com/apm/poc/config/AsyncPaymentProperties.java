@@ -0,0 +1,21 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Sizing of the per-provider executors that run blocking provider calls
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.async")
+@Data
+public class AsyncPaymentProperties {
+    private int corePoolSize = 16;
+    private int maxPoolSize = 64;
+    // Calls waiting for a provider thread; beyond this, requests are rejected with 503
+    private int queueCapacity = 500;
+    private Duration keepAlive = Duration.ofSeconds(60);
+}
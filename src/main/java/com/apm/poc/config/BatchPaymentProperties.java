@@ -0,0 +1,16 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fan-out of POST /api/payment/batch
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.batch")
+@Data
+public class BatchPaymentProperties {
+    // Provider calls a single batch may have in flight at once
+    private int maxConcurrency = 8;
+}
@@ -0,0 +1,39 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Per-provider, per-operation circuit breakers and adaptive timeouts
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.circuit-breaker")
+@Data
+public class CircuitBreakerProperties {
+    private boolean enabled = true;
+    // Most recent calls considered when computing the failure rate
+    private int windowSize = 50;
+    // Calls needed in the window before the breaker may open
+    private int minimumCalls = 20;
+    // Failure rate (0..1) at which the breaker opens
+    private double failureRateThreshold = 0.5;
+    // How long an open breaker rejects calls before letting probes through
+    private Duration openDuration = Duration.ofSeconds(30);
+    // Probe calls allowed while half-open; all must succeed to close again
+    private int halfOpenCalls = 3;
+    private Timeout timeout = new Timeout();
+
+    @Data
+    public static class Timeout {
+        // Timeout = observed latency percentile x multiplier, clamped to [min, max]
+        private double percentile = 0.99;
+        private double multiplier = 3.0;
+        private Duration min = Duration.ofSeconds(1);
+        private Duration max = Duration.ofSeconds(20);
+        // Samples needed before the adaptive value replaces max
+        private int minimumSamples = 20;
+    }
+}
@@ -0,0 +1,19 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cost controls for the error path
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.errors")
+@Data
+public class ErrorHandlingProperties {
+    // Unexpected errors logged with their stack trace per second; the rest are only counted
+    private double stackTracesPerSecond = 1;
+    private int stackTraceBurst = 10;
+    // Distinct messages per error code whose response is built once and reused
+    private int cachedResponsesPerCode = 256;
+}
@@ -0,0 +1,24 @@
+package com.apm.poc.config;
+
+import com.apm.poc.id.IdGenerator;
+import com.apm.poc.id.SnowflakeIdGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * Never lazy: a missing node id has to stop startup, not the first payment under fast-start
+     */
+    @Bean
+    @Lazy(false)
+    public IdGenerator idGenerator(IdGeneratorProperties properties) {
+        if (properties.getNodeId() == null) {
+            throw new IllegalStateException("payment.id.node-id is not set; give every instance its own value between 0 and "
+                    + SnowflakeIdGenerator.MAX_NODE + " (e.g. PAYMENT_ID_NODEID)");
+        }
+        return new SnowflakeIdGenerator(properties.getNodeId(), properties.getShards(), properties.getEpoch());
+    }
+}
@@ -0,0 +1,22 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Snowflake ID generation; every instance sharing a journal or index needs its own node-id
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.id")
+@Data
+public class IdGeneratorProperties {
+    // 0..63; no default, two instances on the same node id would issue the same IDs
+    private Integer nodeId;
+    // Power of two up to 16; stripes for concurrent generating threads
+    private int shards = 16;
+    // Start of the 41-bit millisecond clock; never change once IDs have been issued
+    private Instant epoch = Instant.parse("2025-01-01T00:00:00Z");
+}
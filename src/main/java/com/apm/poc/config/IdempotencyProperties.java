@@ -0,0 +1,22 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Deduplication of payment creation on client retries
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.idempotency")
+@Data
+public class IdempotencyProperties {
+    // How long a completed response is replayed for the same key
+    private Duration ttl = Duration.ofHours(24);
+    // Memory bound; the oldest keys are evicted first
+    private int maxEntries = 100_000;
+    // Fall back to PaymentRequest.orderId when no Idempotency-Key header is sent
+    private boolean useOrderId = true;
+}
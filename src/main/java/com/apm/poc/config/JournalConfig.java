@@ -0,0 +1,28 @@
+package com.apm.poc.config;
+
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentJournal;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * Durable payment journal; the PaymentIndex it replays into is always present
+ * and works purely in memory when the journal is disabled
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "payment.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JournalConfig {
+
+    /**
+     * Never lazy: the replay has to finish before the first lookup reads the index
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @Lazy(false)
+    public PaymentJournal paymentJournal(JournalProperties properties, PaymentIndex paymentIndex,
+                                         MeterRegistry meterRegistry) {
+        return new PaymentJournal(properties, paymentIndex, meterRegistry);
+    }
+}
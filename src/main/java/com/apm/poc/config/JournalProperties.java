@@ -0,0 +1,28 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Local append-only journal of payment lifecycle events
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.journal")
+@Data
+public class JournalProperties {
+    private boolean enabled = true;
+    private String directory = System.getProperty("java.io.tmpdir") + "/apm-journal";
+    // Segments roll over once they reach this size
+    private long segmentSize = 64L * 1024 * 1024;
+    // Pending appends accepted before new events are dropped (request threads never wait)
+    private int queueCapacity = 65_536;
+    // Records written (and fsynced) together in one group commit
+    private int maxBatchSize = 1024;
+    // fsync after every group commit; when false the OS decides when data reaches disk
+    private boolean fsync = true;
+    // Writer thread wakes up at least this often while idle
+    private Duration pollInterval = Duration.ofMillis(100);
+}
@@ -0,0 +1,55 @@
+package com.apm.poc.config;
+
+import com.apm.poc.http.HttpTransport;
+import com.apm.poc.outbox.EventSink;
+import com.apm.poc.outbox.HttpEventSink;
+import com.apm.poc.outbox.InMemoryEventSink;
+import com.apm.poc.outbox.NdjsonFileSink;
+import com.apm.poc.outbox.PaymentEventOutbox;
+import com.apm.poc.outbox.TcpEventSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.stream.Collectors;
+
+/**
+ * Payment event outbox and its sinks (payment.outbox.*); each sink is enabled on its own
+ * Sinks are closed by the outbox after its last delivery, not by the container
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "payment.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PaymentEventOutbox paymentEventOutbox(OutboxProperties properties, ObjectProvider<EventSink> sinks,
+                                                 MeterRegistry meterRegistry) {
+        return new PaymentEventOutbox(properties, sinks.orderedStream().collect(Collectors.toList()), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(prefix = "payment.outbox.file", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public NdjsonFileSink ndjsonFileSink(OutboxProperties properties) {
+        return new NdjsonFileSink(properties.getFile());
+    }
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(prefix = "payment.outbox.tcp", name = "enabled", havingValue = "true")
+    public TcpEventSink tcpEventSink(OutboxProperties properties) {
+        return new TcpEventSink(properties.getTcp());
+    }
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(prefix = "payment.outbox.http", name = "enabled", havingValue = "true")
+    public HttpEventSink httpEventSink(OutboxProperties properties, HttpTransport httpTransport) {
+        return new HttpEventSink(properties.getHttp(), httpTransport);
+    }
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnProperty(prefix = "payment.outbox.memory", name = "enabled", havingValue = "true")
+    public InMemoryEventSink inMemoryEventSink(OutboxProperties properties) {
+        return new InMemoryEventSink(properties.getMemory().getRetained());
+    }
+}
@@ -0,0 +1,73 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Outbox that delivers payment lifecycle events to downstream sinks in batches
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.outbox")
+@Data
+public class OutboxProperties {
+
+    public enum Overflow {
+        // A full buffer rejects the new event
+        DROP_NEWEST,
+        // A full buffer discards its oldest undelivered event to make room for the new one
+        DROP_OLDEST
+    }
+
+    private boolean enabled = true;
+    // Ring buffer slots, rounded up to a power of two
+    private int capacity = 65_536;
+    private Overflow overflow = Overflow.DROP_NEWEST;
+    // Events handed to the sinks together
+    private int maxBatchSize = 512;
+    // Batcher wakes up at least this often while idle
+    private Duration pollInterval = Duration.ofMillis(100);
+    // Deliveries of one batch to a sink before it is dropped for that sink; retries back off exponentially
+    private int maxAttempts = 5;
+    private Duration retryBackoff = Duration.ofMillis(200);
+    private Duration maxRetryBackoff = Duration.ofSeconds(5);
+
+    private FileSink file = new FileSink();
+    private TcpSink tcp = new TcpSink();
+    private HttpSink http = new HttpSink();
+    private MemorySink memory = new MemorySink();
+
+    @Data
+    public static class FileSink {
+        private boolean enabled = true;
+        private String directory = System.getProperty("java.io.tmpdir") + "/apm-outbox";
+        // Files roll over once they reach this size; only the newest max-files are kept
+        private long maxFileSize = 64L * 1024 * 1024;
+        private int maxFiles = 10;
+        private boolean fsync = false;
+    }
+
+    @Data
+    public static class TcpSink {
+        private boolean enabled = false;
+        private String host = "localhost";
+        private int port = 5170;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class HttpSink {
+        private boolean enabled = false;
+        // Receives each batch as one POST with an application/x-ndjson body
+        private String url = "http://localhost:8089/events";
+    }
+
+    @Data
+    public static class MemorySink {
+        private boolean enabled = false;
+        // Most recent events kept for inspection
+        private int retained = 10_000;
+    }
+}
@@ -1,43 +1,78 @@
 package com.apm.poc.config;
 
-import com.paypal.base.rest.APIContext;
-import com.paypal.base.rest.OAuthTokenCredential;
-import com.paypal.base.rest.PayPalRESTException;
+import com.apm.poc.http.HttpTransport;
+import com.apm.poc.service.PayPalApiClient;
+import com.apm.poc.standin.PayPalStandInServer;
+import com.apm.poc.tenant.TenantRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 @Configuration
 @Profile("!mock & !mock-applepay")
 public class PayPalConfig {
 
+    /**
+     * PayPal REST calls over the shared pooled transport (payment.http.*)
+     */
     @Bean
-    public Map<String, String> paypalSdkConfig(PayPalProperties properties) {
-        Map<String, String> configMap = new HashMap<>();
-        configMap.put("mode", properties.getMode());
-        return configMap;
+    public PayPalApiClient payPalApiClient(PayPalProperties properties,
+                                           HttpTransport httpTransport,
+                                           ObjectProvider<PayPalStandInServer> standIn) {
+        return new PayPalApiClient(httpTransport,
+                baseUrl(properties.getMode(), properties.getBaseUrl(), standInBaseUrl(standIn)));
     }
 
-    @Bean
-    public OAuthTokenCredential oAuthTokenCredential(PayPalProperties properties, Map<String, String> paypalSdkConfig) {
-        return new OAuthTokenCredential(
-                properties.getClientId(),
-                properties.getClientSecret(),
-                paypalSdkConfig
-        );
+    /**
+     * Managed OAuth token cache. PayPalService asks it for the current token on every call,
+     * so an expired token is never baked into a long-lived singleton.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PayPalTokenManager payPalTokenManager(PayPalProperties properties,
+                                                 PayPalApiClient payPalApiClient,
+                                                 MeterRegistry meterRegistry) {
+        return new PayPalTokenManager(properties, payPalApiClient, meterRegistry);
     }
 
-    @Bean
-    public APIContext apiContext(OAuthTokenCredential oAuthTokenCredential, PayPalProperties properties) throws PayPalRESTException {
-        APIContext context = new APIContext(oAuthTokenCredential.getAccessToken());
-        context.setConfigurationMap(paypalSdkConfig(properties));
-        return context;
+    /**
+     * Per-tenant clients and tokens (payment.tenants); the beans above serve requests without a tenant
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PayPalTenantClients payPalTenantClients(PayPalProperties properties,
+                                                   TenantProperties tenantProperties,
+                                                   TenantRegistry tenantRegistry,
+                                                   HttpTransport httpTransport,
+                                                   ObjectProvider<PayPalStandInServer> standIn,
+                                                   PayPalApiClient payPalApiClient,
+                                                   PayPalTokenManager payPalTokenManager,
+                                                   MeterRegistry meterRegistry) {
+        return new PayPalTenantClients(properties, tenantProperties, tenantRegistry, httpTransport,
+                standInBaseUrl(standIn), payPalApiClient, payPalTokenManager, meterRegistry);
+    }
+
+    /**
+     * The local stand-in (profile paypal-standin) is started first and wins over base-url
+     */
+    static String baseUrl(String mode, String baseUrl, String standInBaseUrl) {
+        if (standInBaseUrl != null) {
+            return standInBaseUrl;
+        }
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            return baseUrl;
+        }
+        return "live".equalsIgnoreCase(mode) ? PayPalApiClient.LIVE_URL : PayPalApiClient.SANDBOX_URL;
+    }
+
+    private static String standInBaseUrl(ObjectProvider<PayPalStandInServer> standIn) {
+        PayPalStandInServer standInServer = standIn.getIfAvailable();
+        return standInServer != null ? standInServer.getBaseUrl() : null;
     }
 }
 
@@ -46,9 +81,25 @@ public class PayPalConfig {
 @Data
 class PayPalProperties {
     private String mode = "sandbox"; // sandbox or live
+    // Overrides the API host implied by mode, e.g. to target a stand-in
+    private String baseUrl;
     private String clientId;
     private String clientSecret;
     private String returnUrl;
     private String cancelUrl;
+    private Token token = new Token();
+
+    @Data
+    public static class Token {
+        // Start refreshing this long before the token expires
+        private Duration refreshAhead = Duration.ofMinutes(5);
+        // Never schedule refreshes closer together than this
+        private Duration minRefreshInterval = Duration.ofSeconds(30);
+        // Retry backoff after a failed refresh, doubled per attempt up to the max
+        private Duration retryBackoff = Duration.ofSeconds(2);
+        private Duration maxRetryBackoff = Duration.ofMinutes(1);
+        // Fetch the first token while the bean is created; when false it is fetched in the background
+        private boolean fetchOnStart = true;
+    }
 }
 
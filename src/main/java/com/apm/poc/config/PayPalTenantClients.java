@@ -0,0 +1,167 @@
+package com.apm.poc.config;
+
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.http.HttpTransport;
+import com.apm.poc.service.PayPalApiClient;
+import com.apm.poc.tenant.TenantContext;
+import com.apm.poc.tenant.TenantCredentials;
+import com.apm.poc.tenant.TenantRegistry;
+import com.paypal.base.rest.PayPalRESTException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PayPal API client and token manager of the current tenant (TenantContext)
+ *
+ * A tenant's pair is built on its first request and its token fetched by that request, so an
+ * instance hosting many mostly idle merchants only holds tokens for the active ones. Pairs
+ * unused for idle-timeout are dropped. When the tenants file changes, the pair of every tenant
+ * whose entry changed is replaced in one map update and the old token manager stopped; callers
+ * already holding it finish with the token they have. Requests without a tenant use the
+ * default paypal.* beans.
+ */
+@Slf4j
+public class PayPalTenantClients {
+
+    private final PayPalProperties properties;
+    private final TenantProperties tenantProperties;
+    private final TenantRegistry registry;
+    private final HttpTransport httpTransport;
+    // Stand-in base URL, which wins over every tenant's own (profile paypal-standin)
+    private final String standInBaseUrl;
+    private final Client defaultClient;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "paypal-tenant-tokens");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    PayPalTenantClients(PayPalProperties properties, TenantProperties tenantProperties, TenantRegistry registry,
+                        HttpTransport httpTransport, String standInBaseUrl, PayPalApiClient defaultApiClient,
+                        PayPalTokenManager defaultTokenManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tenantProperties = tenantProperties;
+        this.registry = registry;
+        this.httpTransport = httpTransport;
+        this.standInBaseUrl = standInBaseUrl;
+        this.defaultClient = new Client(null, defaultApiClient, defaultTokenManager);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("paypal.tenant.clients", clients, Map::size)
+                .description("Tenants with a cached PayPal client and token")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        registry.addListener(this::onReload);
+        long sweep = Math.max(1_000, tenantProperties.getIdleTimeout().toMillis() / 4);
+        scheduler.scheduleWithFixedDelay(this::evictIdle, sweep, sweep, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        clients.values().forEach(client -> client.tokenManager.stop());
+        clients.clear();
+    }
+
+    /**
+     * @throws PaymentException UNKNOWN_TENANT when the tenant was removed from the file since the request was admitted
+     */
+    public Client current() {
+        String tenantId = TenantContext.current();
+        if (tenantId == null) {
+            return defaultClient;
+        }
+        TenantCredentials credentials = registry.find(tenantId)
+                .orElseThrow(() -> new PaymentException(ErrorCode.UNKNOWN_TENANT, "Unknown merchant: " + tenantId));
+        Client client = clients.get(tenantId);
+        if (client == null || !client.credentials.equals(credentials)) {
+            client = clients.compute(tenantId, (id, existing) -> replace(existing, credentials));
+        }
+        client.lastUsed = System.nanoTime();
+        return client;
+    }
+
+    private void onReload(TenantRegistry.Snapshot snapshot) {
+        for (String tenantId : clients.keySet()) {
+            clients.computeIfPresent(tenantId, (id, existing) ->
+                    snapshot.find(id).map(credentials -> replace(existing, credentials)).orElseGet(() -> {
+                        log.info("Tenant {} removed, dropping its PayPal client", id);
+                        existing.tokenManager.stop();
+                        return null;
+                    }));
+        }
+    }
+
+    /**
+     * Runs inside a map update, so the old manager is stopped (and its meters removed) before the new one registers
+     */
+    private Client replace(Client existing, TenantCredentials credentials) {
+        if (existing != null) {
+            if (existing.credentials.equals(credentials)) {
+                return existing;
+            }
+            log.info("Credentials of tenant {} changed, replacing its PayPal client", credentials.getId());
+            existing.tokenManager.stop();
+        }
+        return create(credentials);
+    }
+
+    private Client create(TenantCredentials credentials) {
+        String mode = credentials.getMode() != null ? credentials.getMode() : properties.getMode();
+        // A tenant's own mode outranks the default base-url, which was set for the default mode
+        String baseUrl = credentials.getBaseUrl() != null ? credentials.getBaseUrl()
+                : credentials.getMode() != null ? null : properties.getBaseUrl();
+        PayPalApiClient apiClient = new PayPalApiClient(httpTransport,
+                PayPalConfig.baseUrl(mode, baseUrl, standInBaseUrl));
+        PayPalTokenManager tokenManager = new PayPalTokenManager(credentials.getId(), credentials.getClientId(),
+                credentials.getClientSecret(), properties.getToken(), apiClient, scheduler, meterRegistry);
+        return new Client(credentials, apiClient, tokenManager);
+    }
+
+    private void evictIdle() {
+        long idleNanos = tenantProperties.getIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        clients.forEach((tenantId, client) -> {
+            if (now - client.lastUsed > idleNanos && clients.remove(tenantId, client)) {
+                log.info("Tenant {} idle for {}, dropping its PayPal client", tenantId, tenantProperties.getIdleTimeout());
+                client.tokenManager.stop();
+            }
+        });
+    }
+
+    /**
+     * A tenant's API client with its access token source
+     */
+    public static final class Client {
+        private final TenantCredentials credentials;
+        private final PayPalApiClient apiClient;
+        private final PayPalTokenManager tokenManager;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Client(TenantCredentials credentials, PayPalApiClient apiClient, PayPalTokenManager tokenManager) {
+            this.credentials = credentials;
+            this.apiClient = apiClient;
+            this.tokenManager = tokenManager;
+        }
+
+        public PayPalApiClient getApiClient() {
+            return apiClient;
+        }
+
+        public String getAccessToken() throws PayPalRESTException {
+            return tokenManager.getAccessToken();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.apm.poc.config;
+
+import com.apm.poc.service.PayPalApiClient;
+import com.paypal.base.rest.PayPalRESTException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caches the PayPal OAuth access token together with its expiry and keeps it fresh.
+ *
+ * The token is refreshed in the background shortly before it lapses, so request threads
+ * normally never wait on the OAuth endpoint. Only one caller fetches at a time: while a
+ * refresh is in progress everyone else keeps using the still-valid token, and callers only
+ * block when there is no usable token at all.
+ *
+ * Tokens are fetched straight from the OAuth endpoint rather than through the SDK's static
+ * OAuthTokenCredential cache. PayPal itself keeps returning the same token until shortly before
+ * it expires, so when a refresh-ahead gets the current token back the next fetch is pushed to
+ * the expiry margin instead of polling the endpoint every min-refresh-interval. After a failed
+ * fetch, callers without a usable token fail fast until the retry backoff has passed rather than
+ * queueing up to hit the failing endpoint one after another.
+ *
+ * One manager exists per credential set: the default paypal.* one, plus one per tenant created
+ * by PayPalTenantClients on first use. Tenant managers share that cache's scheduler and are
+ * never started; their first getAccessToken fetches the token.
+ */
+@Slf4j
+public class PayPalTokenManager {
+
+    // Treat tokens as expired slightly early so they don't lapse mid-request
+    private static final long EXPIRY_MARGIN_MILLIS = 10_000;
+    static final String DEFAULT_TENANT = "default";
+
+    private final String tenant;
+    private final String clientId;
+    private final String clientSecret;
+    private final PayPalApiClient apiClient;
+    private final PayPalProperties.Token settings;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicBoolean asyncRefreshPending = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer refreshSuccessTimer;
+    private final Timer refreshFailureTimer;
+    private final Gauge remainingGauge;
+
+    private volatile AccessToken current;
+    private volatile ScheduledFuture<?> nextRefresh;
+    private volatile int consecutiveFailures;
+    private volatile long retryAt; // epoch millis before which callers do not fetch again after a failure
+    private volatile boolean stopped;
+
+    PayPalTokenManager(PayPalProperties properties, PayPalApiClient apiClient, MeterRegistry meterRegistry) {
+        this(DEFAULT_TENANT, properties.getClientId(), properties.getClientSecret(), properties.getToken(),
+                apiClient, null, meterRegistry);
+    }
+
+    /**
+     * @param scheduler shared refresh scheduler, left running by stop(); null creates an own one
+     */
+    PayPalTokenManager(String tenant, String clientId, String clientSecret, PayPalProperties.Token settings,
+                       PayPalApiClient apiClient, @Nullable ScheduledExecutorService scheduler,
+                       MeterRegistry meterRegistry) {
+        this.tenant = tenant;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.apiClient = apiClient;
+        this.settings = settings;
+        this.ownsScheduler = scheduler == null;
+        this.scheduler = scheduler != null ? scheduler : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "paypal-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.meterRegistry = meterRegistry;
+        this.refreshSuccessTimer = Timer.builder("paypal.oauth.token.refresh")
+                .description("Latency of PayPal OAuth token fetches")
+                .tag("outcome", "success")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        this.refreshFailureTimer = Timer.builder("paypal.oauth.token.refresh")
+                .description("Latency of PayPal OAuth token fetches")
+                .tag("outcome", "failure")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+        this.remainingGauge = Gauge.builder("paypal.oauth.token.remaining", this, PayPalTokenManager::remainingSeconds)
+                .description("Seconds until the cached PayPal access token expires")
+                .baseUnit("seconds")
+                .tag("tenant", tenant)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fetches the first token and starts the background refresh cycle.
+     * A failure here is not fatal: the refresh is retried in the background
+     * and the first request will try again if no token is available yet.
+     * With fetch-on-start off the first fetch also happens in the background.
+     */
+    public void start() {
+        if (!settings.isFetchOnStart()) {
+            refreshInBackground();
+            return;
+        }
+        try {
+            refreshNow();
+        } catch (PayPalRESTException e) {
+            log.error("Initial PayPal token fetch failed, will retry in background: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stops refreshing and unregisters the meters, so a tenant rebuilt after this registers fresh ones
+     */
+    public void stop() {
+        stopped = true;
+        ScheduledFuture<?> refresh = nextRefresh;
+        if (refresh != null) {
+            refresh.cancel(false);
+        }
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+        meterRegistry.remove(remainingGauge);
+        meterRegistry.remove(refreshSuccessTimer);
+        meterRegistry.remove(refreshFailureTimer);
+    }
+
+    /**
+     * Returns a valid access token, fetching one synchronously only if none is usable
+     */
+    public String getAccessToken() throws PayPalRESTException {
+        AccessToken token = current;
+        long now = System.currentTimeMillis();
+        if (token != null && !token.isExpired(now)) {
+            if (token.isDueForRefresh(now, settings.getRefreshAhead())) {
+                refreshInBackground();
+            }
+            return token.value;
+        }
+        return refreshIfExpired();
+    }
+
+    private String refreshIfExpired() throws PayPalRESTException {
+        refreshLock.lock();
+        try {
+            // Another caller may have refreshed while we were waiting for the lock
+            AccessToken token = current;
+            long now = System.currentTimeMillis();
+            if (token != null && !token.isExpired(now)) {
+                return token.value;
+            }
+            if (consecutiveFailures > 0 && now < retryAt) {
+                throw new PayPalRESTException("PayPal access token for " + tenant + " is unavailable, next attempt in "
+                        + (retryAt - now) + " ms");
+            }
+            return fetch().value;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!stopped && asyncRefreshPending.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                try {
+                    refreshNow();
+                } catch (PayPalRESTException e) {
+                    // Already logged and rescheduled by fetch()
+                } finally {
+                    asyncRefreshPending.set(false);
+                }
+            });
+        }
+    }
+
+    private void refreshNow() throws PayPalRESTException {
+        if (!refreshLock.tryLock()) {
+            // A refresh is already in flight, its result will be picked up by everyone
+            return;
+        }
+        try {
+            AccessToken token = current;
+            long now = System.currentTimeMillis();
+            if (token != null && !token.isDueForRefresh(now, settings.getRefreshAhead())) {
+                return;
+            }
+            fetch();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Performs the actual OAuth call. Must be called while holding the refresh lock.
+     */
+    private AccessToken fetch() throws PayPalRESTException {
+        long start = System.nanoTime();
+        try {
+            // Fetched directly rather than via OAuthTokenCredential, whose static cache
+            // keeps handing out the old token until it has actually expired
+            PayPalApiClient.AccessToken fetched = apiClient.fetchAccessToken(clientId, clientSecret);
+            long expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(fetched.getExpiresInSeconds());
+            AccessToken previous = current;
+            // PayPal hands out the same token until shortly before it expires; fetching again earlier is pointless
+            boolean unchanged = previous != null && previous.value.equals(fetched.getValue());
+            if (unchanged) {
+                log.debug("PayPal token refresh for {} returned the current token, next attempt at expiry", tenant);
+            }
+            AccessToken token = new AccessToken(fetched.getValue(), expiresAt, !unchanged);
+
+            long elapsed = System.nanoTime() - start;
+            refreshSuccessTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            current = token;
+            consecutiveFailures = 0;
+            log.info("PayPal access token for {} refreshed in {} ms, expires in {} s",
+                    tenant, TimeUnit.NANOSECONDS.toMillis(elapsed), (long) remainingSeconds());
+
+            scheduleRefresh(refreshDelay(token));
+            return token;
+        } catch (PayPalRESTException e) {
+            refreshFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            consecutiveFailures++;
+            Duration backoff = retryBackoff();
+            retryAt = System.currentTimeMillis() + backoff.toMillis();
+            log.warn("PayPal access token refresh for {} failed (attempt {}), retrying in {} ms: {}",
+                    tenant, consecutiveFailures, backoff.toMillis(), e.getMessage());
+            scheduleRefresh(backoff);
+            throw e;
+        }
+    }
+
+    private Duration refreshDelay(AccessToken token) {
+        long delay = token.refreshAt(settings.getRefreshAhead()) - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(delay, settings.getMinRefreshInterval().toMillis()));
+    }
+
+    private Duration retryBackoff() {
+        long base = settings.getRetryBackoff().toMillis();
+        long backoff = base << Math.min(consecutiveFailures - 1, 10);
+        return Duration.ofMillis(Math.min(backoff, settings.getMaxRetryBackoff().toMillis()));
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        ScheduledFuture<?> previous = nextRefresh;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        if (!stopped && !scheduler.isShutdown()) {
+            nextRefresh = scheduler.schedule(this::refreshInBackground, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private double remainingSeconds() {
+        AccessToken token = current;
+        if (token == null) {
+            return 0;
+        }
+        return Math.max(0, (token.expiresAt - System.currentTimeMillis()) / 1000.0);
+    }
+
+    private static final class AccessToken {
+        private final String value;
+        private final long expiresAt;
+        // False once a refresh-ahead got this same token back; it is then only replaced at expiry
+        private final boolean renewable;
+
+        private AccessToken(String value, long expiresAt, boolean renewable) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.renewable = renewable;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt - EXPIRY_MARGIN_MILLIS;
+        }
+
+        private boolean isDueForRefresh(long now, Duration refreshAhead) {
+            return now >= refreshAt(refreshAhead);
+        }
+
+        private long refreshAt(Duration refreshAhead) {
+            return expiresAt - (renewable ? refreshAhead.toMillis() : EXPIRY_MARGIN_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Read-through cache in front of getPaymentDetails
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.details-cache")
+@Data
+public class PaymentDetailsCacheProperties {
+    private boolean enabled = true;
+    private int maxEntries = 50_000;
+    // Payments that can still change state (e.g. "created") are only cached briefly
+    private Duration pendingTtl = Duration.ofSeconds(5);
+}
@@ -0,0 +1,30 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-request provider selection when several providers are active in one JVM
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.routing")
+@Data
+public class PaymentRoutingProperties {
+    // Retry a failed create on the next eligible provider
+    private boolean failover = true;
+    // Weight of the newest sample in the latency / error-rate moving averages
+    private double ewmaAlpha = 0.2;
+    // First matching rule decides which providers may serve a request; no match means all providers
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        // ISO 4217 code this rule applies to, empty for any currency
+        private String currency;
+        private List<String> providers = new ArrayList<>();
+    }
+}
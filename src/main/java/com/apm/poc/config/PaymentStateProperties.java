@@ -0,0 +1,22 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Server-side payment state used to deduplicate execute calls
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.state")
+@Data
+public class PaymentStateProperties {
+    private boolean enabled = true;
+    // Approved, failed and cancelled payments answer repeated executes from memory this long;
+    // afterwards the PaymentIndex still knows approved and cancelled payments
+    private Duration settledTtl = Duration.ofMinutes(15);
+    // Created payments waiting for the buyer; PayPal approvals lapse after about 3 hours
+    private Duration createdTtl = Duration.ofHours(3);
+}
@@ -0,0 +1,63 @@
+package com.apm.poc.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One bounded executor per payment provider, so a slow provider can only
+ * exhaust its own threads and never the servlet pool or another provider's
+ */
+@Component
+@Slf4j
+public class ProviderExecutors {
+
+    private final AsyncPaymentProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+    public ProviderExecutors(AsyncPaymentProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ExecutorService forProvider(String provider) {
+        return executors.computeIfAbsent(provider, this::newExecutor);
+    }
+
+    private ExecutorService newExecutor(String provider) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getCorePoolSize(),
+                properties.getMaxPoolSize(),
+                properties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-" + provider + "-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        log.info("Created executor for provider {}: core={}, max={}, queue={}", provider,
+                properties.getCorePoolSize(), properties.getMaxPoolSize(), properties.getQueueCapacity());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "payment." + provider, Tags.of("provider", provider));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+}
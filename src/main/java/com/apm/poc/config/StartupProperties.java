@@ -0,0 +1,22 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Startup behaviour, mostly relevant to the fast-start profile (lazy bean initialization)
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.startup")
+@Data
+public class StartupProperties {
+    // Once the application is ready, build the provider stack and controllers on a background thread
+    private boolean warmUp = true;
+    // Wait this long after ready before warming up, leaving the CPU to the first requests
+    private Duration warmUpDelay = Duration.ZERO;
+    // Shut down once warm-up is done; used by the AppCDS training run
+    private boolean exitAfterWarmUp = false;
+}
@@ -0,0 +1,26 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bulk status lookup, POST /api/payment/status
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.status-lookup")
+@Data
+public class StatusLookupProperties {
+    // Provider lookups a single request may have in flight at once
+    private int maxConcurrency = 16;
+    // Upper bound for one streamed response, instead of spring.mvc.async.request-timeout
+    private Duration timeout = Duration.ofMinutes(10);
+    // Streams written at once across all clients, each on its own thread; more get 429
+    private int maxStreams = 16;
+    // Streams one client (API key, else merchant header, else address) may have open at once; more get 429
+    private int maxStreamsPerClient = 2;
+    // Retry-After sent with those 429s
+    private Duration busyRetryAfter = Duration.ofSeconds(5);
+}
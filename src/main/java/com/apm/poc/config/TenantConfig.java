@@ -0,0 +1,46 @@
+package com.apm.poc.config;
+
+import com.apm.poc.tenant.TenantInterceptor;
+import com.apm.poc.tenant.TenantRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Merchant tenants (payment.tenants); without a tenants file every request uses the paypal.* credentials
+ */
+@Configuration
+public class TenantConfig {
+
+    /**
+     * Never lazy: a broken tenants file should fail startup, not the first request
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @Lazy(false)
+    public TenantRegistry tenantRegistry(TenantProperties properties, MeterRegistry meterRegistry) {
+        return new TenantRegistry(properties, meterRegistry);
+    }
+
+    /**
+     * The reactive edition resolves the tenant in ReactivePaymentController instead
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @RequiredArgsConstructor
+    static class TenantWebConfig implements WebMvcConfigurer {
+
+        private final TenantInterceptor tenantInterceptor;
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(tenantInterceptor)
+                    .addPathPatterns("/api/payment/**")
+                    .excludePathPatterns("/api/payment/health");
+        }
+    }
+}
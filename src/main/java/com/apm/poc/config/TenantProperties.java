@@ -0,0 +1,31 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merchant tenants sharing one instance, each with its own PayPal credentials
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.tenants")
+@Data
+public class TenantProperties {
+    // YAML file with the tenants, reloaded when it changes; none means single-merchant (paypal.client-id)
+    private String file;
+    // Requests name their tenant with this header, or with an API key listed for the tenant
+    private String header = "X-Merchant-Id";
+    private String apiKeyHeader = "X-Api-Key";
+    // Query parameter carrying the tenant on PayPal's redirects back to /success and /cancel
+    private String redirectParameter = "tenant";
+    // PayPal's redirect targets, the only paths where the header or parameter alone names the tenant
+    private List<String> redirectPaths = new ArrayList<>(List.of("/api/payment/success", "/api/payment/cancel"));
+    // How often the file is checked for changes when no file system event arrives
+    private Duration reloadInterval = Duration.ofSeconds(5);
+    // PayPal client and token of a tenant are dropped after this long without requests
+    private Duration idleTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,26 @@
+package com.apm.poc.config;
+
+import com.apm.poc.event.PaymentEventPublisher;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.service.AsyncPaymentServiceInterface;
+import com.apm.poc.webhook.WebhookProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Webhook ingestion: POST /api/webhooks/paypal feeding the WebhookProcessor
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "payment.webhook", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WebhookConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public WebhookProcessor webhookProcessor(WebhookProperties properties, PaymentIndex paymentIndex,
+                                             PaymentEventPublisher eventPublisher,
+                                             AsyncPaymentServiceInterface paymentService,
+                                             MeterRegistry meterRegistry) {
+        return new WebhookProcessor(properties, paymentIndex, eventPublisher, paymentService, meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Ingestion of provider webhooks
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.webhook")
+@Data
+public class WebhookProperties {
+    private boolean enabled = true;
+    // Events accepted but not yet processed; beyond this the endpoint answers 503 and PayPal redelivers
+    private int queueCapacity = 10_000;
+    // Events processed together per consumer wake-up
+    private int maxBatchSize = 256;
+    // Recently processed event ids remembered to drop redeliveries
+    private int dedupeEntries = 100_000;
+    // Consumer thread wakes up at least this often while idle
+    private Duration pollInterval = Duration.ofMillis(100);
+    // Retry-After sent with 503 while the queue is full
+    private Duration retryAfter = Duration.ofSeconds(5);
+    // Longest a batch waits for the provider to confirm the payments its events name
+    private Duration confirmTimeout = Duration.ofSeconds(10);
+    // Processing attempts per event when the confirmation fails, retry-backoff apart
+    private int maxAttempts = 5;
+    private Duration retryBackoff = Duration.ofSeconds(10);
+}
@@ -1,63 +1,127 @@
 package com.apm.poc.controller;
 
+import com.apm.poc.admission.AdmissionService;
+import com.apm.poc.config.AdmissionProperties;
+import com.apm.poc.config.StatusLookupProperties;
+import com.apm.poc.dto.BatchPaymentRequest;
+import com.apm.poc.dto.BatchPaymentResponse;
+import com.apm.poc.dto.PaymentDetails;
 import com.apm.poc.dto.PaymentRequest;
 import com.apm.poc.dto.PaymentResponse;
-import com.apm.poc.service.PaymentServiceInterface;
-import com.paypal.api.payments.Payment;
+import com.apm.poc.dto.PaymentStatusLine;
+import com.apm.poc.dto.PaymentStatusRequest;
+import com.apm.poc.service.AsyncPaymentServiceInterface;
+import com.apm.poc.service.BatchPaymentService;
+import com.apm.poc.service.IdempotencyService;
+import com.apm.poc.service.PaymentStatusLookupService;
+import com.apm.poc.service.StatusLookupStreams;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/payment")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Validated
 @Slf4j
 public class PaymentController {
 
-    private final PaymentServiceInterface paymentService;
+    private final AsyncPaymentServiceInterface paymentService;
+    private final IdempotencyService idempotencyService;
+    private final BatchPaymentService batchPaymentService;
+    private final AdmissionService admissionService;
+    private final AdmissionProperties admissionProperties;
+    private final PaymentStatusLookupService statusLookupService;
+    private final StatusLookupProperties statusLookupProperties;
+    private final StatusLookupStreams statusLookupStreams;
+    private final ObjectMapper objectMapper;
 
     /**
      * Initiates a payment (PayPal, Apple Pay, etc.)
      * This endpoint is called when user clicks payment button
+     * The servlet thread is released while the provider call is in flight
+     * Retries with the same Idempotency-Key (or orderId) get the original response back
+     * Payers over their rate limit get 429 before the provider is called
      */
     @PostMapping("/create")
-    public ResponseEntity<PaymentResponse> createPayment(@Valid @RequestBody PaymentRequest request) {
+    public CompletableFuture<ResponseEntity<PaymentResponse>> createPayment(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest request) {
         log.info("Received payment request from: {}", request.getUserEmail());
-        PaymentResponse response = paymentService.createPayment(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        return idempotencyService.createPayment(idempotencyKey, request,
+                        () -> admissionService.admitPayer(request.getUserEmail()))
+                .thenApply(result -> ResponseEntity.status(HttpStatus.CREATED)
+                        .header("Idempotent-Replayed", String.valueOf(result.isReplayed()))
+                        .body(result.getResponse()));
+    }
+
+    /**
+     * Creates many payments in one call (marketplace carts, subscription runs)
+     * All items are validated up front; provider calls fan out with a concurrency limit
+     * and each item reports its own response or error
+     * Items already created under the same orderId are replayed and not charged to their payer
+     */
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<BatchPaymentResponse>> createPayments(
+            @Valid @RequestBody BatchPaymentRequest request) {
+        log.info("Received batch payment request with {} payments", request.getPayments().size());
+        admissionService.admitPayers(request.getPayments().stream()
+                .filter(payment -> !idempotencyService.isReplay(payment))
+                .map(PaymentRequest::getUserEmail)
+                .collect(Collectors.toList()));
+        return batchPaymentService.createPayments(request.getPayments())
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
      * Success callback - Payment provider redirects here after user approves payment
      */
     @GetMapping("/success")
-    public ResponseEntity<PaymentResponse> paymentSuccess(
+    public CompletableFuture<ResponseEntity<PaymentResponse>> paymentSuccess(
             @RequestParam("paymentId") String paymentId,
             @RequestParam("PayerID") String payerId) {
 
         log.info("Payment success callback - Payment ID: {}, Payer ID: {}", paymentId, payerId);
-        PaymentResponse response = paymentService.executePayment(paymentId, payerId);
-        return ResponseEntity.ok(response);
+        return paymentService.executePayment(paymentId, payerId)
+                .thenApply(ResponseEntity::ok);
     }
 
     /**
      * Cancel callback - Payment provider redirects here if user cancels payment
+     * Informational only: anyone can call it, so the payment stays created and lapses at the provider
      */
     @GetMapping("/cancel")
-    public ResponseEntity<PaymentResponse> paymentCancel() {
-        log.info("Payment was cancelled by user");
+    public ResponseEntity<PaymentResponse> paymentCancel(
+            @RequestParam(value = "paymentId", required = false) String paymentId) {
+        log.info("Payment was cancelled by user, Payment ID: {}", paymentId);
         return ResponseEntity.ok(PaymentResponse.cancelled());
     }
 
@@ -65,12 +129,82 @@ public class PaymentController {
      * Get payment details by ID
      */
     @GetMapping("/{paymentId}")
-    public ResponseEntity<Payment> getPaymentDetails(@PathVariable String paymentId) {
+    public CompletableFuture<ResponseEntity<PaymentDetails>> getPaymentDetails(@PathVariable String paymentId) {
         log.info("Fetching payment details for: {}", paymentId);
-        Payment payment = paymentService.getPaymentDetails(paymentId);
-        return ResponseEntity.ok(payment);
+        return paymentService.getPaymentDetails(paymentId)
+                .thenApply(ResponseEntity::ok);
     }
 
+    /**
+     * Status of many payments (reconciliation, support tooling), streamed as NDJSON
+     * One line per id as soon as its lookup finishes; a failed lookup is reported on its own
+     * line and the rest of the stream carries on
+     * Streams are written on their own bounded executor; a client over its concurrent streams gets 429
+     */
+    @PostMapping(value = "/status", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getPaymentStatuses(@Valid @RequestBody PaymentStatusRequest request,
+                                                                    HttpServletRequest httpRequest) {
+        log.info("Received status lookup for {} payments", request.getPaymentIds().size());
+        // The interceptor charged the request; each provider lookup is charged as it starts
+        String merchantId = httpRequest.getHeader(admissionProperties.getMerchantHeader());
+        String apiKey = httpRequest.getHeader(admissionProperties.getApiKeyHeader());
+        StatusLookupStreams.Slot slot = statusLookupStreams.open(apiKey, merchantId, httpRequest.getRemoteAddr());
+        startStream(httpRequest, slot);
+        PaymentStatusLookupService.Lookup lookup = statusLookupService.lookup(request.getPaymentIds(),
+                () -> admissionService.awaitClient(merchantId, apiKey));
+        ObjectWriter writer = objectMapper.writerFor(PaymentStatusLine.class);
+        StreamingResponseBody body = out -> {
+            try {
+                lookup.writeTo(new PaymentStatusLookupService.LineSink() {
+                    @Override
+                    public void write(PaymentStatusLine line) throws IOException {
+                        out.write(writer.writeValueAsBytes(line));
+                        out.write('\n');
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        out.flush();
+                    }
+                });
+            } catch (InterruptedException e) {
+                // Timed out: the stream simply ends
+                Thread.currentThread().interrupt();
+            } finally {
+                slot.close();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Runs the stream on the status lookup executor with payment.status-lookup.timeout instead of
+     * spring.mvc.async.request-timeout, which is sized for one provider call; the slot is also
+     * released if the stream never gets to run
+     */
+    private void startStream(HttpServletRequest httpRequest, StatusLookupStreams.Slot slot) {
+        long timeout = statusLookupProperties.getTimeout().toMillis();
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(httpRequest);
+        asyncManager.setTaskExecutor(statusLookupStreams.getExecutor());
+        asyncManager.registerCallableInterceptor(StatusLookupProperties.class,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        if (request instanceof AsyncWebRequest) {
+                            ((AsyncWebRequest) request).setTimeout(timeout);
+                        }
+                    }
+
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        slot.close();
+                    }
+                });
+    }
+
+
     /**
      * Health check endpoint
      */
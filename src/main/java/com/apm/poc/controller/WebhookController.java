@@ -0,0 +1,45 @@
+package com.apm.poc.controller;
+
+import com.apm.poc.config.WebhookProperties;
+import com.apm.poc.dto.PayPalWebhookEvent;
+import com.apm.poc.webhook.WebhookProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/webhooks")
+@ConditionalOnProperty(prefix = "payment.webhook", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookController {
+
+    private final WebhookProcessor webhookProcessor;
+    private final WebhookProperties properties;
+
+    /**
+     * PayPal webhook notifications
+     * Acknowledged as soon as the event is queued; processing happens in the background
+     */
+    @PostMapping("/paypal")
+    public ResponseEntity<Void> paypalWebhook(@RequestBody PayPalWebhookEvent event) {
+        if (event.getId() == null || event.getId().isBlank() || event.getEventType() == null) {
+            log.warn("Rejecting webhook without id or event_type");
+            return ResponseEntity.badRequest().build();
+        }
+        if (!webhookProcessor.submit(event)) {
+            // PayPal retries non-2xx deliveries with backoff
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfter().toSeconds()))
+                    .build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
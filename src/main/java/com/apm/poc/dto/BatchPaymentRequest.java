@@ -0,0 +1,25 @@
+package com.apm.poc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentRequest {
+
+    public static final int MAX_PAYMENTS = 500;
+
+    // Every item is validated up front; one invalid item rejects the whole batch
+    @NotEmpty(message = "At least one payment is required")
+    @Size(max = MAX_PAYMENTS, message = "A batch may contain at most " + MAX_PAYMENTS + " payments")
+    private List<@Valid PaymentRequest> payments;
+}
@@ -0,0 +1,31 @@
+package com.apm.poc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentResponse {
+
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<Item> results; // same order as the request
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private int index;
+        private String orderId;
+        private PaymentResponse response; // set when the payment was created
+        private String error;             // set when it failed
+    }
+}
@@ -0,0 +1,16 @@
+package com.apm.poc.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+/**
+ * Body of every error response except field validation errors
+ * Immutable, so one instance is shared by all responses with the same code and message
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ErrorResponse {
+    String error;
+    String code;
+    String message;
+}
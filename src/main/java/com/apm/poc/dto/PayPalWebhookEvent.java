@@ -0,0 +1,47 @@
+package com.apm.poc.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PayPal webhook notification, reduced to the fields needed to follow a payment's state
+ * For sale events the resource is the sale and parent_payment is the payment id
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PayPalWebhookEvent {
+
+    // Unique per event; PayPal redelivers the same id until it gets a 2xx
+    private String id;
+
+    @JsonProperty("event_type")
+    private String eventType; // e.g. PAYMENT.SALE.COMPLETED
+
+    @JsonProperty("resource_type")
+    private String resourceType; // e.g. sale, payment
+
+    @JsonProperty("create_time")
+    private String createTime;
+
+    private Resource resource;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Resource {
+        private String id;
+        private String state;
+
+        @JsonProperty("parent_payment")
+        private String parentPayment;
+    }
+}
@@ -0,0 +1,37 @@
+package com.apm.poc.dto;
+
+import com.apm.poc.money.Money;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Provider-neutral view of a payment, returned by GET /api/payment/{paymentId}
+ * Every provider maps its own representation into this compact, immutable object
+ */
+@Value
+@Builder(toBuilder = true)
+public class PaymentDetails {
+
+    String paymentId;
+    String provider;
+    String state;          // created, approved, failed, cancelled
+    Long amountMinor;      // amount in minor units of the currency (e.g. cents), null if unknown
+    String currency;       // ISO 4217 code
+    String payerReference; // provider payer id or e-mail
+    Instant createTime;
+    Instant updateTime;
+
+    public static class PaymentDetailsBuilder {
+
+        /**
+         * Sets amountMinor and currency together, both null if the amount is unknown
+         */
+        public PaymentDetailsBuilder amount(Money amount) {
+            this.amountMinor = amount == null ? null : amount.getMinorUnits();
+            this.currency = amount == null ? null : amount.getCurrency().getCode();
+            return this;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.apm.poc.dto;
 
+import com.apm.poc.money.CurrencyUnit;
+import com.apm.poc.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -36,5 +38,15 @@ public class PaymentRequest {
 
     // Optional: Additional metadata
     private String metadata;
+
+    // Optional: Payment provider to use (e.g., "paypal", "applepay"); chosen by routing rules when empty
+    private String provider;
+
+    /**
+     * Amount in the request's currency; fails with INVALID_CURRENCY or INVALID_AMOUNT
+     */
+    public Money toMoney() {
+        return Money.of(amount, CurrencyUnit.of(currency));
+    }
 }
 
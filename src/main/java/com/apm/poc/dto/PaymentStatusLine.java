@@ -0,0 +1,20 @@
+package com.apm.poc.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One NDJSON line of POST /api/payment/status, written as soon as its lookup finishes
+ * Lines arrive in completion order; index is the id's position in the request
+ */
+@Value
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentStatusLine {
+    int index;
+    String paymentId;
+    String source;          // local (settled payment known to this instance) or provider (details cache or provider call)
+    PaymentDetails details; // set when the lookup succeeded
+    ErrorResponse error;    // set when it failed
+}
@@ -0,0 +1,24 @@
+package com.apm.poc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStatusRequest {
+
+    public static final int MAX_PAYMENT_IDS = 10_000;
+
+    @NotEmpty(message = "At least one payment id is required")
+    @Size(max = MAX_PAYMENT_IDS, message = "A lookup may contain at most " + MAX_PAYMENT_IDS + " payment ids")
+    private List<@NotBlank(message = "Payment ids must not be blank") String> paymentIds;
+}
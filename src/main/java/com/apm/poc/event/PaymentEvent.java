@@ -0,0 +1,24 @@
+package com.apm.poc.event;
+
+import com.apm.poc.money.Money;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable record of a single payment lifecycle transition
+ * Only the CREATED event carries the amount, currency, payer and tenant; later events
+ * reference the payment by id and carry the new state
+ */
+@Value
+@Builder
+public class PaymentEvent {
+    PaymentEventType type;
+    String paymentId;
+    String provider;
+    String orderId;
+    Money amount;
+    String payerReference;
+    String state;
+    long timestamp; // epoch millis
+    String tenant; // merchant whose credentials created the payment, null for the default ones
+}
@@ -0,0 +1,10 @@
+package com.apm.poc.event;
+
+/**
+ * Receives payment lifecycle events
+ * Called on request threads, so implementations must not block
+ */
+public interface PaymentEventListener {
+
+    void onEvent(PaymentEvent event);
+}
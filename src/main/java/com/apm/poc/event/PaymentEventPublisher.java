@@ -0,0 +1,30 @@
+package com.apm.poc.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fans lifecycle events out to every registered PaymentEventListener
+ * A failing listener is logged and never affects the payment itself
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentEventPublisher {
+
+    private final List<PaymentEventListener> listeners;
+
+    public void publish(PaymentEvent event) {
+        for (PaymentEventListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                log.error("Payment event listener {} failed for {} {}: {}",
+                        listener.getClass().getSimpleName(), event.getType(), event.getPaymentId(), e.getMessage(), e);
+            }
+        }
+    }
+}
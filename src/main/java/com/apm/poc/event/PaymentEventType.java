@@ -0,0 +1,11 @@
+package com.apm.poc.event;
+
+/**
+ * Lifecycle transitions of a payment
+ */
+public enum PaymentEventType {
+    CREATED,
+    EXECUTED,
+    FAILED,
+    CANCELLED
+}
@@ -0,0 +1,21 @@
+package com.apm.poc.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown before any work is done when a client is over its rate limit (RATE_LIMITED)
+ * or the service is shedding load (OVERLOADED); mapped to 429 with Retry-After
+ */
+public class AdmissionRejectedException extends PaymentException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(ErrorCode code, String message, Duration retryAfter) {
+        super(code, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
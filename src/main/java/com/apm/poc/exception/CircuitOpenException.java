@@ -0,0 +1,11 @@
+package com.apm.poc.exception;
+
+/**
+ * Thrown without calling the provider while its circuit breaker is open
+ */
+public class CircuitOpenException extends ProviderUnavailableException {
+
+    public CircuitOpenException(String message) {
+        super(ErrorCode.PROVIDER_CIRCUIT_OPEN, message, null);
+    }
+}
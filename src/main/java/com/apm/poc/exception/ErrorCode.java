@@ -0,0 +1,60 @@
+package com.apm.poc.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Every error the API can answer with, its HTTP status and response title
+ *
+ * Expected codes are normal outcomes of payment traffic (bad input, declines, shedding): their
+ * exceptions carry no stack trace and are only logged at debug. Unexpected codes keep the stack
+ * trace and are logged at ERROR, rate limited.
+ */
+public enum ErrorCode {
+    INVALID_REQUEST(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    VALIDATION_FAILED(HttpStatus.BAD_REQUEST, "Validation Error", true),
+    METHOD_NOT_ALLOWED(HttpStatus.METHOD_NOT_ALLOWED, "Method Not Allowed", true),
+    INVALID_AMOUNT(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    INVALID_CURRENCY(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    INVALID_PAYMENT_ID(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    PAYMENT_NOT_FOUND(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    PAYMENT_CANCELLED(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    UNKNOWN_PROVIDER(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    UNKNOWN_TENANT(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    // A merchant named without its API key, or not the API key's own merchant
+    TENANT_NOT_AUTHORIZED(HttpStatus.FORBIDDEN, "Forbidden", true),
+    IDEMPOTENCY_KEY_INVALID(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    IDEMPOTENCY_KEY_REUSED(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency Key Reused", true),
+    // The provider refused the request (4xx other than 401 / 403 / 408 / 429), e.g. a decline or PAYMENT_ALREADY_DONE
+    PROVIDER_DECLINED(HttpStatus.BAD_REQUEST, "Payment Error", true),
+    RATE_LIMITED(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", true),
+    OVERLOADED(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", true),
+    PROVIDER_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", true),
+    PROVIDER_CIRCUIT_OPEN(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", true),
+    PROVIDER_TIMEOUT(HttpStatus.GATEWAY_TIMEOUT, "Gateway Timeout", true),
+    REQUEST_TIMEOUT(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", true),
+    // The provider failed (5xx, I/O, unparseable response), rejected our credentials (401 / 403) or our own code failed
+    PROVIDER_ERROR(HttpStatus.BAD_GATEWAY, "Bad Gateway", false),
+    INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", false);
+
+    private final HttpStatus status;
+    private final String title;
+    private final boolean expected;
+
+    ErrorCode(HttpStatus status, String title, boolean expected) {
+        this.status = status;
+        this.title = title;
+        this.expected = expected;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isExpected() {
+        return expected;
+    }
+}
@@ -0,0 +1,60 @@
+package com.apm.poc.exception;
+
+import com.apm.poc.admission.TokenBucket;
+import com.apm.poc.config.ErrorHandlingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts errors by code and logs them according to their cost and value
+ *
+ * Expected errors are logged at debug only. Unexpected ones are logged at ERROR with their stack
+ * trace at a limited rate; those over the limit are only counted, and the next logged one says
+ * how many were skipped.
+ *
+ * payment.errors{code}
+ */
+@Component
+@Slf4j
+public class ErrorLogger {
+
+    private final Map<ErrorCode, Counter> errors = new EnumMap<>(ErrorCode.class);
+    private final TokenBucket stackTraceBudget;
+    private final LongAdder suppressed = new LongAdder();
+
+    public ErrorLogger(ErrorHandlingProperties properties, MeterRegistry meterRegistry) {
+        this.stackTraceBudget = new TokenBucket(properties.getStackTracesPerSecond(), properties.getStackTraceBurst(),
+                System.nanoTime());
+        for (ErrorCode code : ErrorCode.values()) {
+            errors.put(code, Counter.builder("payment.errors")
+                    .description("Errors by error code")
+                    .tag("code", code.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(ErrorCode code, Throwable error) {
+        errors.get(code).increment();
+        if (code.isExpected()) {
+            log.debug("{}: {}", code, error.getMessage());
+            return;
+        }
+        if (stackTraceBudget.tryAcquire(1, System.nanoTime()) > 0) {
+            suppressed.increment();
+            return;
+        }
+        long skipped = suppressed.sumThenReset();
+        if (skipped > 0) {
+            log.error("{}: {} ({} unexpected errors not logged since the previous one)",
+                    code, error.getMessage(), skipped, error);
+        } else {
+            log.error("{}: {}", code, error.getMessage(), error);
+        }
+    }
+}
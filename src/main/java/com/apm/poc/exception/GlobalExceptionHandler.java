@@ -1,47 +1,131 @@
 package com.apm.poc.exception;
 
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import com.apm.poc.config.ErrorHandlingProperties;
+import com.apm.poc.dto.ErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Maps exceptions to error responses by ErrorCode
+ * Responses for a code and message are built once and reused, so a storm of identical
+ * declines allocates nothing here; logging is left to ErrorLogger
+ */
 @RestControllerAdvice
-@Slf4j
 public class GlobalExceptionHandler {
 
+    private static final String UNEXPECTED_MESSAGE = "An unexpected error occurred. Please try again later.";
+    private static final String UNREADABLE_MESSAGE = "Malformed request body";
+    private static final String REQUEST_TIMEOUT_MESSAGE = "Payment provider did not respond in time. Please try again later.";
+
+    private final ErrorLogger errorLogger;
+    private final int cachedResponsesPerCode;
+    private final Map<ErrorCode, Map<String, ResponseEntity<ErrorResponse>>> responses = new EnumMap<>(ErrorCode.class);
+
+    public GlobalExceptionHandler(ErrorHandlingProperties properties, ErrorLogger errorLogger) {
+        this.errorLogger = errorLogger;
+        this.cachedResponsesPerCode = properties.getCachedResponsesPerCode();
+        for (ErrorCode code : ErrorCode.values()) {
+            responses.put(code, new ConcurrentHashMap<>());
+        }
+    }
+
     @ExceptionHandler(PaymentException.class)
-    public ResponseEntity<Map<String, String>> handlePaymentException(PaymentException ex) {
-        log.error("Payment error: {}", ex.getMessage(), ex);
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Payment Error");
-        error.put("message", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    public ResponseEntity<ErrorResponse> handlePaymentException(PaymentException ex) {
+        errorLogger.record(ex.getCode(), ex);
+        return response(ex.getCode(), ex.getMessage());
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRejected(AdmissionRejectedException ex) {
+        errorLogger.record(ex.getCode(), ex);
+        // Whole seconds, rounded up so clients never retry too early
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(ex.getCode().getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response(ex.getCode(), ex.getMessage()).getBody());
+    }
+
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleAsyncTimeout(AsyncRequestTimeoutException ex) {
+        errorLogger.record(ErrorCode.REQUEST_TIMEOUT, ex);
+        return response(ErrorCode.REQUEST_TIMEOUT, REQUEST_TIMEOUT_MESSAGE);
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        errorLogger.record(ErrorCode.VALIDATION_FAILED, ex);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
             String errorMessage = error.getDefaultMessage();
             errors.put(fieldName, errorMessage);
         });
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+        return ResponseEntity.status(ErrorCode.VALIDATION_FAILED.getStatus()).body(errors);
+    }
+
+    @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
+    public ResponseEntity<ErrorResponse> handleMethodNotSupported(HttpRequestMethodNotSupportedException ex) {
+        errorLogger.record(ErrorCode.METHOD_NOT_ALLOWED, ex);
+        return response(ErrorCode.METHOD_NOT_ALLOWED, ex.getMessage());
+    }
+
+    /**
+     * Malformed requests rejected by Spring MVC before reaching a controller
+     */
+    @ExceptionHandler({
+            MissingServletRequestParameterException.class,
+            MissingRequestHeaderException.class,
+            MethodArgumentTypeMismatchException.class,
+            HttpMediaTypeNotSupportedException.class
+    })
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(Exception ex) {
+        errorLogger.record(ErrorCode.INVALID_REQUEST, ex);
+        return response(ErrorCode.INVALID_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadable(HttpMessageNotReadableException ex) {
+        errorLogger.record(ErrorCode.INVALID_REQUEST, ex);
+        // The parser's message echoes the input, so it is neither shown nor cached
+        return response(ErrorCode.INVALID_REQUEST, UNREADABLE_MESSAGE);
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, String>> handleGeneralException(Exception ex) {
-        log.error("Unexpected error: {}", ex.getMessage(), ex);
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "Internal Server Error");
-        error.put("message", "An unexpected error occurred. Please try again later.");
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    public ResponseEntity<ErrorResponse> handleGeneralException(Exception ex) {
+        errorLogger.record(ErrorCode.INTERNAL_ERROR, ex);
+        return response(ErrorCode.INTERNAL_ERROR, UNEXPECTED_MESSAGE);
     }
-}
 
+    ResponseEntity<ErrorResponse> response(ErrorCode code, String message) {
+        if (message == null) {
+            return response(code, code.getTitle());
+        }
+        Map<String, ResponseEntity<ErrorResponse>> cached = responses.get(code);
+        ResponseEntity<ErrorResponse> response = cached.get(message);
+        if (response != null) {
+            return response;
+        }
+        // ResponseEntity and its headers are immutable, so one instance can answer many requests
+        response = ResponseEntity.status(code.getStatus()).body(new ErrorResponse(code.getTitle(), code.name(), message));
+        if (cached.size() < cachedResponsesPerCode) {
+            cached.putIfAbsent(message, response);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,11 @@
+package com.apm.poc.exception;
+
+/**
+ * Thrown when an idempotency key is replayed with a different request body
+ */
+public class IdempotencyKeyReuseException extends PaymentException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(ErrorCode.IDEMPOTENCY_KEY_REUSED, message);
+    }
+}
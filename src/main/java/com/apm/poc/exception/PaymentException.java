@@ -1,13 +1,31 @@
 package com.apm.poc.exception;
 
+/**
+ * Failure of a payment operation, classified by ErrorCode
+ * Expected codes skip stack trace capture, which dominates the cost of throwing
+ */
 public class PaymentException extends RuntimeException {
 
+    private final ErrorCode code;
+
     public PaymentException(String message) {
-        super(message);
+        this(ErrorCode.INVALID_REQUEST, message, null);
     }
 
     public PaymentException(String message, Throwable cause) {
-        super(message, cause);
+        this(ErrorCode.PROVIDER_ERROR, message, cause);
+    }
+
+    public PaymentException(ErrorCode code, String message) {
+        this(code, message, null);
     }
-}
 
+    public PaymentException(ErrorCode code, String message, Throwable cause) {
+        super(message, cause, true, !code.isExpected());
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,11 @@
+package com.apm.poc.exception;
+
+/**
+ * Thrown when a provider call exceeds its adaptive timeout
+ */
+public class ProviderTimeoutException extends ProviderUnavailableException {
+
+    public ProviderTimeoutException(String message, Throwable cause) {
+        super(ErrorCode.PROVIDER_TIMEOUT, message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package com.apm.poc.exception;
+
+/**
+ * Thrown when a payment provider cannot take more work right now
+ * (executor saturated, provider unreachable). Mapped to 503 so clients retry later.
+ */
+public class ProviderUnavailableException extends PaymentException {
+
+    public ProviderUnavailableException(String message) {
+        super(ErrorCode.PROVIDER_UNAVAILABLE, message);
+    }
+
+    public ProviderUnavailableException(String message, Throwable cause) {
+        super(ErrorCode.PROVIDER_UNAVAILABLE, message, cause);
+    }
+
+    protected ProviderUnavailableException(ErrorCode code, String message, Throwable cause) {
+        super(code, message, cause);
+    }
+}
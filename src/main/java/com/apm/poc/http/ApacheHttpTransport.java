@@ -0,0 +1,155 @@
+package com.apm.poc.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Apache HttpClient 5 transport over a bounded keep-alive connection pool
+ *
+ * payment.http.pool.connections{state=leased|idle|pending}, payment.http.pool.max
+ * payment.http.pool.wait - time spent waiting to lease a connection
+ */
+public class ApacheHttpTransport implements HttpTransport {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final RequestConfig requestConfig;
+    private final Duration readTimeout;
+
+    public ApacheHttpTransport(HttpTransportProperties properties, MeterRegistry meterRegistry) {
+        Timer leaseWait = Timer.builder("payment.http.pool.wait")
+                .description("Time spent waiting for a pooled connection")
+                .tag("transport", "apache")
+                .register(meterRegistry);
+
+        this.connectionManager = new PoolingHttpClientConnectionManager(
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", SSLConnectionSocketFactory.getSocketFactory())
+                        .build(),
+                PoolConcurrencyPolicy.STRICT,
+                // Most recently used first, so warm connections are reused and cold ones age out
+                PoolReusePolicy.LIFO,
+                TimeValue.ofMilliseconds(properties.getTimeToLive().toMillis())) {
+
+            @Override
+            public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+                return timed(super.lease(id, route, requestTimeout, state), leaseWait);
+            }
+        };
+        connectionManager.setMaxTotal(properties.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxConnectionsPerHost());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(Timeout.ofMilliseconds(properties.getReadTimeout().toMillis()))
+                .setTcpNoDelay(true)
+                .build());
+        // Check connections idle for a while before reuse, the peer may have closed them
+        connectionManager.setValidateAfterInactivity(TimeValue.ofSeconds(2));
+
+        this.readTimeout = properties.getReadTimeout();
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeout().toMillis()))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getConnectionRequestTimeout().toMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(properties.getReadTimeout().toMillis()))
+                .build();
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(properties.getIdleTimeout().toMillis()))
+                // Retries are decided above the transport (circuit breaker, router failover)
+                .disableAutomaticRetries()
+                .build();
+
+        registerPoolGauge(meterRegistry, "leased", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, "idle", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, "pending", PoolStats::getPending);
+        Gauge.builder("payment.http.pool.max", connectionManager, manager -> manager.getTotalStats().getMax())
+                .description("Maximum pooled connections")
+                .tag("transport", "apache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response send(String method, URI uri, Map<String, String> headers, String body) throws IOException {
+        HttpUriRequestBase request = new HttpUriRequestBase(method, uri);
+        headers.forEach(request::setHeader);
+        Duration callReadTimeout = ReadTimeout.cap(readTimeout);
+        if (!callReadTimeout.equals(readTimeout)) {
+            request.setConfig(RequestConfig.copy(requestConfig)
+                    .setResponseTimeout(Timeout.ofMilliseconds(callReadTimeout.toMillis()))
+                    .build());
+        }
+        if (body != null) {
+            String contentType = headers.getOrDefault("Content-Type", ContentType.APPLICATION_JSON.getMimeType());
+            request.setEntity(new StringEntity(body, ContentType.parse(contentType).withCharset(StandardCharsets.UTF_8)));
+        }
+        return client.execute(request, response -> new Response(response.getCode(),
+                response.getEntity() != null ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : ""));
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private void registerPoolGauge(MeterRegistry meterRegistry, String state, ToIntFunction<PoolStats> value) {
+        Gauge.builder("payment.http.pool.connections", connectionManager,
+                        manager -> value.applyAsInt(manager.getTotalStats()))
+                .description("Pooled outbound connections by state")
+                .tag("transport", "apache")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    private static LeaseRequest timed(LeaseRequest lease, Timer leaseWait) {
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout) throws InterruptedException, ExecutionException, TimeoutException {
+                long start = System.nanoTime();
+                try {
+                    return lease.get(timeout);
+                } finally {
+                    leaseWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return lease.cancel();
+            }
+        };
+    }
+}
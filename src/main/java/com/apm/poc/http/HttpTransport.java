@@ -0,0 +1,43 @@
+package com.apm.poc.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Outbound HTTP for provider calls
+ * Implementations keep connections alive and bound them per host; see HttpTransportProperties
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Sends a request and reads the whole response body
+     *
+     * @param body request body, or null for none
+     * @throws IOException on connect/read timeouts, pool exhaustion and I/O errors; never for HTTP error statuses
+     */
+    Response send(String method, URI uri, Map<String, String> headers, String body) throws IOException;
+
+    final class Response {
+        private final int status;
+        private final String body;
+
+        public Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public boolean isSuccessful() {
+            return status >= 200 && status < 300;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.apm.poc.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+@Configuration
+public class HttpTransportConfig {
+
+    /**
+     * Shared by all provider clients; created on first use, so mock profiles open no pool
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy
+    public HttpTransport httpTransport(HttpTransportProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getType() == HttpTransportProperties.Type.JDK) {
+            return new JdkHttpTransport(properties, meterRegistry);
+        }
+        return new ApacheHttpTransport(properties, meterRegistry);
+    }
+}
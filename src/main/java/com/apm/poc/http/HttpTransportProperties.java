@@ -0,0 +1,36 @@
+package com.apm.poc.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeouts for outbound provider calls
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.http")
+@Data
+public class HttpTransportProperties {
+
+    public enum Type {
+        // Apache HttpClient 5: HTTP/1.1 keep-alive pool with per-host limits and full pool statistics
+        APACHE,
+        // JDK HttpClient: HTTP/2 via ALPN where the server offers it, per-host limit enforced by the transport
+        JDK
+    }
+
+    private Type type = Type.APACHE;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // Socket read timeout; calls under a shorter adaptive timeout (circuit breaker) use that instead
+    private Duration readTimeout = Duration.ofSeconds(30);
+    // How long a call may wait for a free connection before failing
+    private Duration connectionRequestTimeout = Duration.ofSeconds(2);
+    private int maxConnections = 200;
+    private int maxConnectionsPerHost = 50;
+    // Idle connections are closed after this; keep below the provider's own keep-alive timeout
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    // Connections are recycled after this so DNS changes are picked up
+    private Duration timeToLive = Duration.ofMinutes(5);
+}
@@ -0,0 +1,90 @@
+package com.apm.poc.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JDK HttpClient transport, negotiating HTTP/2 over TLS where the server supports it
+ *
+ * The JDK client pools and multiplexes connections itself but has no per-host limit,
+ * so concurrent requests per host are bounded here with a semaphore.
+ *
+ * payment.http.pool.connections{state=leased} - requests holding a per-host permit
+ * payment.http.pool.wait - time spent waiting for a permit
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    private final HttpClient client;
+    private final HttpTransportProperties properties;
+    private final Map<String, Semaphore> permitsByHost = new ConcurrentHashMap<>();
+    private final AtomicInteger leased = new AtomicInteger();
+    private final Timer leaseWait;
+
+    public JdkHttpTransport(HttpTransportProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(properties.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.leaseWait = Timer.builder("payment.http.pool.wait")
+                .description("Time spent waiting for a pooled connection")
+                .tag("transport", "jdk")
+                .register(meterRegistry);
+        Gauge.builder("payment.http.pool.connections", leased, AtomicInteger::get)
+                .description("Pooled outbound connections by state")
+                .tag("transport", "jdk")
+                .tag("state", "leased")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response send(String method, URI uri, Map<String, String> headers, String body) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(ReadTimeout.cap(properties.getReadTimeout()))
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        headers.forEach(request::header);
+
+        Semaphore permits = permitsByHost.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(),
+                host -> new Semaphore(properties.getMaxConnectionsPerHost()));
+        long start = System.nanoTime();
+        try {
+            boolean acquired = permits.tryAcquire(properties.getConnectionRequestTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            leaseWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                throw new IOException("Timed out waiting for a connection to " + uri.getAuthority());
+            }
+            leased.incrementAndGet();
+            try {
+                HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+                return new Response(response.statusCode(), response.body());
+            } finally {
+                leased.decrementAndGet();
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + uri);
+        }
+    }
+
+    @Override
+    public void close() {
+        // HttpClient has no close before Java 21; its threads are daemons and idle connections time out
+    }
+}
@@ -0,0 +1,47 @@
+package com.apm.poc.http;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read timeout for the HTTP calls made on this thread, shorter than payment.http.read-timeout
+ *
+ * Bound around a provider call whose caller gives up sooner than the transport would (see
+ * CircuitBreakingAsyncPaymentService), so the provider thread and its connection are freed
+ * about when the caller stops waiting instead of after the full transport timeout.
+ */
+public final class ReadTimeout {
+
+    private static final ThreadLocal<Duration> CURRENT = new ThreadLocal<>();
+
+    private ReadTimeout() {
+    }
+
+    /**
+     * Runs the call with the given read timeout, null for the transport's own
+     */
+    public static <T> T callWith(Duration timeout, Supplier<T> call) {
+        if (timeout == null) {
+            return call.get();
+        }
+        Duration previous = CURRENT.get();
+        CURRENT.set(timeout);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * The configured timeout, or the one bound to this thread if that is shorter
+     */
+    static Duration cap(Duration configured) {
+        Duration bound = CURRENT.get();
+        return bound != null && bound.compareTo(configured) < 0 ? bound : configured;
+    }
+}
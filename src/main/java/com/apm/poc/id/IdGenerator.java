@@ -0,0 +1,17 @@
+package com.apm.poc.id;
+
+/**
+ * Source of unique, roughly time-ordered identifiers for payments, sessions and tokens
+ */
+public interface IdGenerator {
+
+    /**
+     * Next unique 64-bit ID
+     */
+    long nextId();
+
+    /**
+     * Next ID as a prefix followed by a fixed-width encoding that sorts like the numeric ID
+     */
+    String nextId(String prefix);
+}
@@ -0,0 +1,112 @@
+package com.apm.poc.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Snowflake-style 64-bit IDs: time, node, shard and sequence, generated without locks
+ *
+ * Layout (most significant first):
+ *   1 bit   unused (IDs stay positive)
+ *   41 bits milliseconds since the epoch, about 69 years
+ *   6 bits  node, distinguishes instances
+ *   4 bits  shard, one per stripe of generating threads
+ *   12 bits sequence within the millisecond, 4096 IDs per shard per millisecond
+ *
+ * Each shard keeps its last timestamp and sequence in one long updated by CAS; threads are
+ * spread over shards by thread id, so concurrent callers rarely touch the same slot.
+ * A shard never goes back in time: if the clock steps back, or its 4096 sequence numbers
+ * in a millisecond run out, it carries on from its last timestamp, borrowing ahead.
+ *
+ * IDs from one instance are ordered by time to the millisecond, and strictly increasing per shard.
+ * The string form is 13 Crockford base32 characters, so string order equals numeric order.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final int NODE_BITS = 6;
+    public static final int SHARD_BITS = 4;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int SHARD_SHIFT = SEQUENCE_BITS;
+    private static final int NODE_SHIFT = SEQUENCE_BITS + SHARD_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + SHARD_BITS + NODE_BITS;
+
+    // Each shard's state sits 16 longs (128 bytes) apart so shards don't share a cache line
+    private static final int PADDING = 16;
+
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    private final long epochMillis;
+    private final long nodeBits;
+    private final int shardMask;
+    // Per shard: timestamp << SEQUENCE_BITS | sequence of the last issued ID
+    private final AtomicLongArray state;
+
+    /**
+     * @param shards power of two, at most MAX_SHARDS
+     */
+    public SnowflakeIdGenerator(int nodeId, int shards, Instant epoch) {
+        if (nodeId < 0 || nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE + ": " + nodeId);
+        }
+        if (shards < 1 || shards > MAX_SHARDS || Integer.bitCount(shards) != 1) {
+            throw new IllegalArgumentException("Shards must be a power of two up to " + MAX_SHARDS + ": " + shards);
+        }
+        if (epoch.toEpochMilli() > System.currentTimeMillis()) {
+            throw new IllegalArgumentException("Epoch must not be in the future: " + epoch);
+        }
+        this.epochMillis = epoch.toEpochMilli();
+        this.nodeBits = (long) nodeId << NODE_SHIFT;
+        this.shardMask = shards - 1;
+        this.state = new AtomicLongArray(shards * PADDING);
+    }
+
+    @Override
+    public long nextId() {
+        int shard = (int) Thread.currentThread().getId() & shardMask;
+        int slot = shard * PADDING;
+        while (true) {
+            long previous = state.get(slot);
+            long previousTime = previous >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - epochMillis;
+
+            long next;
+            if (now > previousTime) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (previousTime + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(slot, previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return timestamp << TIMESTAMP_SHIFT | nodeBits | (long) shard << SHARD_SHIFT | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    @Override
+    public String nextId(String prefix) {
+        long id = nextId();
+        int length = prefix.length();
+        char[] chars = new char[length + ENCODED_LENGTH];
+        prefix.getChars(0, length, chars, 0);
+        for (int i = chars.length - 1; i >= length; i--) {
+            chars[i] = BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Milliseconds since the Unix epoch at which an ID was generated
+     */
+    public long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epochMillis;
+    }
+}
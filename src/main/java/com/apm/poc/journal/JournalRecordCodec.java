@@ -0,0 +1,152 @@
+package com.apm.poc.journal;
+
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventType;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.money.CurrencyUnit;
+import com.apm.poc.money.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary layout of one journal record:
+ * <pre>
+ *   int   payload length (0 marks the end of written data)
+ *   int   CRC32 of the payload
+ *   bytes payload: version, type, timestamp, then length-prefixed UTF-8 strings
+ * </pre>
+ * Version 2 appended the tenant; version 1 records decode with none.
+ */
+final class JournalRecordCodec {
+
+    static final int HEADER_SIZE = 8;
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_TENANT = 1;
+    private static final PaymentEventType[] TYPES = PaymentEventType.values();
+
+    private JournalRecordCodec() {
+    }
+
+    /**
+     * Encodes the event as a complete record (header included)
+     */
+    static byte[] encode(PaymentEvent event) {
+        byte[][] fields = {
+                utf8(event.getPaymentId()),
+                utf8(event.getProvider()),
+                utf8(event.getOrderId()),
+                utf8(event.getAmount() == null ? null : event.getAmount().toPlainString()),
+                utf8(event.getAmount() == null ? null : event.getAmount().getCurrency().getCode()),
+                utf8(event.getPayerReference()),
+                utf8(event.getState()),
+                utf8(event.getTenant())
+        };
+        int payloadSize = 1 + 1 + 8;
+        for (byte[] field : fields) {
+            payloadSize += 2 + (field == null ? 0 : field.length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payloadSize);
+        buffer.position(HEADER_SIZE);
+        buffer.put(VERSION);
+        buffer.put((byte) event.getType().ordinal());
+        buffer.putLong(event.getTimestamp());
+        for (byte[] field : fields) {
+            if (field == null) {
+                buffer.putShort((short) -1);
+            } else {
+                buffer.putShort((short) field.length);
+                buffer.put(field);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, payloadSize);
+        buffer.putInt(0, payloadSize);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a payload whose checksum was already verified
+     */
+    static PaymentEvent decode(ByteBuffer payload) {
+        byte version = payload.get();
+        if (version != VERSION && version != VERSION_WITHOUT_TENANT) {
+            throw new IllegalStateException("Unsupported journal record version " + version);
+        }
+        PaymentEventType type = TYPES[payload.get()];
+        long timestamp = payload.getLong();
+        String paymentId = string(payload);
+        String provider = string(payload);
+        String orderId = string(payload);
+        String amount = string(payload);
+        String currency = string(payload);
+        String payerReference = string(payload);
+        String state = string(payload);
+        String tenant = version == VERSION ? string(payload) : null;
+        return PaymentEvent.builder()
+                .type(type)
+                .timestamp(timestamp)
+                .paymentId(paymentId)
+                .provider(provider)
+                .orderId(orderId)
+                .amount(money(amount, currency))
+                .payerReference(payerReference)
+                .state(state)
+                .tenant(tenant)
+                .build();
+    }
+
+    /**
+     * Older records may hold a currency outside the registry, or more decimals than the currency has
+     * (written before amounts were validated); such amounts are rounded to the currency's decimals or
+     * dropped rather than failing the replay
+     */
+    private static Money money(String amount, String currency) {
+        CurrencyUnit unit = CurrencyUnit.find(currency);
+        if (amount == null || unit == null) {
+            return null;
+        }
+        try {
+            return Money.parse(amount, unit);
+        } catch (PaymentException e) {
+            try {
+                return Money.of(new BigDecimal(amount).setScale(unit.getMinorDigits(), RoundingMode.HALF_EVEN), unit);
+            } catch (NumberFormatException | PaymentException unreadable) {
+                return null;
+            }
+        }
+    }
+
+    static boolean checksumMatches(ByteBuffer payload, int expected) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue() == expected;
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal field too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String string(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
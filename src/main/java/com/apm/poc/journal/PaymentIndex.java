@@ -0,0 +1,74 @@
+package com.apm.poc.journal;
+
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventListener;
+import com.apm.poc.event.PaymentEventType;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of every known payment, keyed by payment id
+ *
+ * Kept up to date from live lifecycle events and rebuilt on startup by replaying the journal.
+ * Transitions for payments that were never seen being created are ignored, so arbitrary ids
+ * sent to the execute endpoint cannot grow the index. Events that would leave a settled state
+ * are ignored as well: approved and cancelled are final and a failed payment can only still be
+ * approved, so a late cancel or a failed duplicate execute never overwrites an approval. The
+ * same rules apply while replaying, so the rebuilt index matches the live one.
+ */
+@Component
+public class PaymentIndex implements PaymentEventListener {
+
+    private final ConcurrentHashMap<String, PaymentRecord> records = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEvent(PaymentEvent event) {
+        apply(event);
+    }
+
+    public Optional<PaymentRecord> find(String paymentId) {
+        return Optional.ofNullable(records.get(paymentId));
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    void apply(PaymentEvent event) {
+        if (event.getPaymentId() == null) {
+            return;
+        }
+        if (event.getType() == PaymentEventType.CREATED) {
+            records.put(event.getPaymentId(), PaymentRecord.builder()
+                    .paymentId(event.getPaymentId())
+                    .provider(event.getProvider())
+                    .orderId(event.getOrderId())
+                    .amount(event.getAmount())
+                    .payerReference(event.getPayerReference())
+                    .state(event.getState())
+                    .createdAt(event.getTimestamp())
+                    .updatedAt(event.getTimestamp())
+                    .tenant(event.getTenant())
+                    .build());
+            return;
+        }
+        records.computeIfPresent(event.getPaymentId(), (id, record) -> allows(record.getState(), event.getState())
+                ? record.toBuilder()
+                        .state(event.getState())
+                        .updatedAt(event.getTimestamp())
+                        .build()
+                : record);
+    }
+
+    static boolean allows(String current, String next) {
+        if ("approved".equals(current) || "cancelled".equals(current)) {
+            return false;
+        }
+        if ("failed".equals(current)) {
+            return "approved".equals(next);
+        }
+        return true;
+    }
+}
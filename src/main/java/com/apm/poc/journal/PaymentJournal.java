@@ -0,0 +1,328 @@
+package com.apm.poc.journal;
+
+import com.apm.poc.config.JournalProperties;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of payment lifecycle events on local disk
+ *
+ * Request threads only enqueue the event (a few microseconds); a single writer thread encodes
+ * whatever has accumulated, writes it to the current segment with one gathering write and
+ * fsyncs once per batch (group commit). Segments roll at a fixed size. On startup every
+ * segment is replayed into the PaymentIndex; a torn record at the tail of the last segment,
+ * left behind by a crash mid-write, is detected by its checksum and truncated. A write that
+ * fails while running is cut off the same way before the next batch is appended, so valid
+ * records never end up behind torn bytes.
+ */
+@Slf4j
+public class PaymentJournal implements PaymentEventListener {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final JournalProperties properties;
+    private final PaymentIndex index;
+    private final Path directory;
+    private final BlockingQueue<PendingAppend> queue;
+    private final Thread writer;
+
+    private final Counter appended;
+    private final Counter dropped;
+    private final DistributionSummary batchSize;
+    private final Timer fsyncTimer;
+
+    private volatile boolean running;
+
+    // Owned by the writer thread once started
+    private FileChannel channel;
+    private long segmentNumber;
+    private long position;
+
+    public PaymentJournal(JournalProperties properties, PaymentIndex index, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.index = index;
+        this.directory = Paths.get(properties.getDirectory());
+        this.queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        this.writer = new Thread(this::writeLoop, "payment-journal-writer");
+        this.writer.setDaemon(true);
+
+        this.appended = Counter.builder("payment.journal.appends")
+                .description("Lifecycle events written to the journal")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("payment.journal.dropped")
+                .description("Lifecycle events dropped because the journal queue was full, the write failed or a record could not be replayed")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("payment.journal.batch.size")
+                .description("Records written per group commit")
+                .register(meterRegistry);
+        this.fsyncTimer = Timer.builder("payment.journal.fsync")
+                .description("Latency of journal fsync calls")
+                .register(meterRegistry);
+    }
+
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long replayed = replay();
+        running = true;
+        writer.start();
+        log.info("Payment journal started in {}: replayed {} events, {} payments indexed",
+                directory.toAbsolutePath(), replayed, index.size());
+    }
+
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void onEvent(PaymentEvent event) {
+        enqueue(event, null);
+    }
+
+    /**
+     * Appends an event, completing once it has been written (and fsynced if enabled)
+     */
+    public CompletableFuture<Void> append(PaymentEvent event) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        enqueue(event, durable);
+        return durable;
+    }
+
+    private void enqueue(PaymentEvent event, CompletableFuture<Void> durable) {
+        if (!running || !queue.offer(new PendingAppend(event, durable))) {
+            dropped.increment();
+            log.warn("Payment journal not accepting writes, dropped {} event for {}", event.getType(), event.getPaymentId());
+            if (durable != null) {
+                durable.completeExceptionally(new IllegalStateException("Payment journal is full or stopped"));
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getMaxBatchSize() - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) {
+        List<PendingAppend> encoded = new ArrayList<>(batch.size());
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        long bytes = 0;
+        for (PendingAppend pending : batch) {
+            try {
+                byte[] record = JournalRecordCodec.encode(pending.event);
+                buffers.add(ByteBuffer.wrap(record));
+                encoded.add(pending);
+                bytes += record.length;
+            } catch (RuntimeException e) {
+                fail(pending, e);
+            }
+        }
+        if (encoded.isEmpty()) {
+            return;
+        }
+
+        long batchStart = position;
+        try {
+            if (channel == null || (position > 0 && position + bytes > properties.getSegmentSize())) {
+                roll();
+            }
+            batchStart = position;
+            ByteBuffer[] data = buffers.toArray(new ByteBuffer[0]);
+            long remaining = bytes;
+            while (remaining > 0) {
+                remaining -= channel.write(data);
+            }
+            position += bytes;
+            if (properties.isFsync()) {
+                long start = System.nanoTime();
+                channel.force(false);
+                fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            appended.increment(encoded.size());
+            batchSize.record(encoded.size());
+            for (PendingAppend pending : encoded) {
+                if (pending.durable != null) {
+                    pending.durable.complete(null);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to write {} events to the payment journal: {}", encoded.size(), e.getMessage(), e);
+            encoded.forEach(pending -> fail(pending, e));
+            discardFrom(batchStart);
+        }
+    }
+
+    /**
+     * Cuts a failed batch off the current segment; if that fails too, the segment is abandoned
+     * and the next batch starts a fresh one, leaving the torn bytes at the end of a closed segment
+     */
+    private void discardFrom(long batchStart) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.truncate(batchStart);
+            channel.position(batchStart);
+            position = batchStart;
+        } catch (IOException e) {
+            log.error("Failed to cut off the failed batch in the payment journal, starting a new segment: {}", e.getMessage());
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            channel = null;
+            segmentNumber++;
+        }
+    }
+
+    private void fail(PendingAppend pending, Exception e) {
+        dropped.increment();
+        if (pending.durable != null) {
+            pending.durable.completeExceptionally(e);
+        }
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+            segmentNumber++;
+        }
+        Path segment = segmentPath(segmentNumber);
+        channel = openSegment(segment);
+        position = channel.size();
+        channel.position(position);
+        log.info("Payment journal writing to segment {}", segment.getFileName());
+    }
+
+    FileChannel openSegment(Path segment) throws IOException {
+        return FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Replays all segments into the index and positions the writer at the end of the last one
+     */
+    private long replay() throws IOException {
+        List<Path> segments = listSegments();
+        long events = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = readChannel.size();
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                long validEnd = 0;
+                while (buffer.remaining() >= JournalRecordCodec.HEADER_SIZE) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break;
+                    }
+                    ByteBuffer payload = buffer.slice();
+                    payload.limit(length);
+                    if (!JournalRecordCodec.checksumMatches(payload, checksum)) {
+                        break;
+                    }
+                    try {
+                        index.apply(JournalRecordCodec.decode(payload));
+                        events++;
+                    } catch (RuntimeException e) {
+                        // Intact but unreadable (e.g. an unknown event type); one record must not stop startup
+                        dropped.increment();
+                        log.warn("Skipping unreadable record in journal segment {} at {}: {}",
+                                segment.getFileName(), buffer.position() - JournalRecordCodec.HEADER_SIZE, e.toString());
+                    }
+                    buffer.position(buffer.position() + length);
+                    validEnd = buffer.position();
+                }
+                if (validEnd < size) {
+                    if (last) {
+                        log.warn("Truncating torn tail of journal segment {} at {} of {} bytes",
+                                segment.getFileName(), validEnd, size);
+                        readChannel.truncate(validEnd);
+                    } else {
+                        log.warn("Journal segment {} is corrupt after {} of {} bytes, skipping the rest",
+                                segment.getFileName(), validEnd, size);
+                    }
+                }
+            }
+        }
+        if (!segments.isEmpty()) {
+            segmentNumber = segmentNumber(segments.get(segments.size() - 1));
+        }
+        return events;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class PendingAppend {
+        private final PaymentEvent event;
+        private final CompletableFuture<Void> durable;
+
+        private PendingAppend(PaymentEvent event, CompletableFuture<Void> durable) {
+            this.event = event;
+            this.durable = durable;
+        }
+    }
+}
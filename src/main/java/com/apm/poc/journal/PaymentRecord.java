@@ -0,0 +1,22 @@
+package com.apm.poc.journal;
+
+import com.apm.poc.money.Money;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Latest known state of a payment, folded from its lifecycle events
+ */
+@Value
+@Builder(toBuilder = true)
+public class PaymentRecord {
+    String paymentId;
+    String provider;
+    String orderId;
+    Money amount;
+    String payerReference;
+    String state;
+    long createdAt; // epoch millis
+    long updatedAt; // epoch millis
+    String tenant; // null for the default credentials
+}
@@ -0,0 +1,99 @@
+package com.apm.poc.money;
+
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * ISO 4217 currency with its minor-unit exponent (USD 2, JPY 0, KWD 3)
+ *
+ * The registry is built once from the JDK currency data; currencies without minor units
+ * (gold, SDR and similar funds) are not accepted for payments. Instances are shared, so
+ * they can be compared by identity.
+ */
+public final class CurrencyUnit {
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+    private static final Map<String, CurrencyUnit> REGISTRY = createRegistry();
+
+    private final String code;
+    private final int numericCode;
+    private final int minorDigits;
+    private final long minorPerMajor;
+
+    private CurrencyUnit(String code, int numericCode, int minorDigits) {
+        this.code = code;
+        this.numericCode = numericCode;
+        this.minorDigits = minorDigits;
+        this.minorPerMajor = POWERS_OF_TEN[minorDigits];
+    }
+
+    /**
+     * The currency for an ISO 4217 code, case-insensitive; fails with INVALID_CURRENCY
+     */
+    public static CurrencyUnit of(String code) {
+        if (code == null) {
+            throw new PaymentException(ErrorCode.INVALID_CURRENCY, "Currency is required");
+        }
+        CurrencyUnit currency = find(code);
+        if (currency == null) {
+            throw new PaymentException(ErrorCode.INVALID_CURRENCY, "Unsupported currency: " + code);
+        }
+        return currency;
+    }
+
+    /**
+     * The currency for an ISO 4217 code, case-insensitive, or null if unknown
+     */
+    public static CurrencyUnit find(String code) {
+        if (code == null) {
+            return null;
+        }
+        CurrencyUnit currency = REGISTRY.get(code);
+        return currency != null ? currency : REGISTRY.get(code.toUpperCase(Locale.ROOT));
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getNumericCode() {
+        return numericCode;
+    }
+
+    /**
+     * Digits after the decimal point, e.g. 2 for USD
+     */
+    public int getMinorDigits() {
+        return minorDigits;
+    }
+
+    /**
+     * Minor units in one major unit, e.g. 100 for USD
+     */
+    public long getMinorPerMajor() {
+        return minorPerMajor;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+
+    private static Map<String, CurrencyUnit> createRegistry() {
+        Map<String, CurrencyUnit> registry = new HashMap<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int digits = currency.getDefaultFractionDigits();
+            if (digits >= 0 && digits < POWERS_OF_TEN.length) {
+                registry.put(currency.getCurrencyCode(),
+                        new CurrencyUnit(currency.getCurrencyCode(), currency.getNumericCode(), digits));
+            }
+        }
+        return Collections.unmodifiableMap(registry);
+    }
+}
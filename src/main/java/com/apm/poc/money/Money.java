@@ -0,0 +1,196 @@
+package com.apm.poc.money;
+
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable amount of money as a whole number of minor units of its currency
+ *
+ * 49.99 USD is 4999 units, 500 JPY is 500 units, 1.250 KWD is 1250 units. Amounts with more
+ * decimals than the currency allows are rejected rather than rounded, and parsing and formatting
+ * work on the long directly instead of going through BigDecimal.
+ */
+public final class Money {
+
+    // Long.MIN_VALUE has no positive counterpart, so formatting and negation stay exact
+    private static final long MIN_UNITS = -Long.MAX_VALUE;
+
+    private final long minorUnits;
+    private final CurrencyUnit currency;
+
+    private Money(long minorUnits, CurrencyUnit currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits, CurrencyUnit currency) {
+        if (currency == null) {
+            throw new PaymentException(ErrorCode.INVALID_CURRENCY, "Currency is required");
+        }
+        if (minorUnits < MIN_UNITS) {
+            throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Amount out of range");
+        }
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * Exact conversion of a decimal amount; fails with INVALID_AMOUNT if it has more decimals than the currency
+     */
+    public static Money of(BigDecimal amount, CurrencyUnit currency) {
+        if (amount == null) {
+            throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Amount is required");
+        }
+        if (currency == null) {
+            throw new PaymentException(ErrorCode.INVALID_CURRENCY, "Currency is required");
+        }
+        BigDecimal scaled = amount;
+        if (scaled.scale() > currency.getMinorDigits()) {
+            // 10.50 JPY is not 10.5 JPY, but 10.00 is 10
+            scaled = scaled.stripTrailingZeros();
+            if (scaled.scale() > currency.getMinorDigits()) {
+                throw tooPrecise(amount.toPlainString(), currency);
+            }
+        }
+        try {
+            return ofMinor(scaled.movePointRight(currency.getMinorDigits()).longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Amount out of range");
+        }
+    }
+
+    /**
+     * Parses a plain decimal such as "49.99" or "-5"; trailing zeros beyond the currency's decimals are allowed
+     */
+    public static Money parse(CharSequence amount, CurrencyUnit currency) {
+        if (amount == null || amount.length() == 0) {
+            throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Amount is required");
+        }
+        int length = amount.length();
+        int i = 0;
+        boolean negative = amount.charAt(0) == '-';
+        if (negative || amount.charAt(0) == '+') {
+            i++;
+        }
+        long units = 0;
+        int decimals = -1;
+        boolean sawDigit = false;
+        try {
+            for (; i < length; i++) {
+                char c = amount.charAt(i);
+                if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    throw invalid(amount);
+                }
+                sawDigit = true;
+                if (decimals >= 0 && ++decimals > currency.getMinorDigits()) {
+                    if (c != '0') {
+                        throw tooPrecise(amount.toString(), currency);
+                    }
+                    continue;
+                }
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+            }
+            if (!sawDigit) {
+                throw invalid(amount);
+            }
+            int missing = currency.getMinorDigits() - Math.max(decimals, 0);
+            for (; missing > 0; missing--) {
+                units = Math.multiplyExact(units, 10);
+            }
+        } catch (ArithmeticException e) {
+            throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Amount out of range");
+        }
+        return new Money(negative ? -units : units, currency);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, currency.getMinorDigits());
+    }
+
+    /**
+     * The amount with exactly the currency's decimals and no grouping, e.g. "49.99", "500", "1.250"
+     */
+    public String toPlainString() {
+        int digits = currency.getMinorDigits();
+        if (digits == 0) {
+            return Long.toString(minorUnits);
+        }
+        long major = Math.abs(minorUnits / currency.getMinorPerMajor());
+        long minor = Math.abs(minorUnits % currency.getMinorPerMajor());
+
+        int length = (minorUnits < 0 ? 1 : 0) + integerDigits(major) + 1 + digits;
+        byte[] buffer = new byte[length];
+        int position = length;
+        for (int i = 0; i < digits; i++) {
+            buffer[--position] = (byte) ('0' + minor % 10);
+            minor /= 10;
+        }
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (byte) ('0' + major % 10);
+            major /= 10;
+        } while (major > 0);
+        if (minorUnits < 0) {
+            buffer[--position] = '-';
+        }
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int integerDigits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency == other.currency;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString() + " " + currency.getCode();
+    }
+
+    private static PaymentException tooPrecise(String amount, CurrencyUnit currency) {
+        return new PaymentException(ErrorCode.INVALID_AMOUNT, "Amount " + amount + " has more decimals than "
+                + currency.getCode() + " allows (" + currency.getMinorDigits() + ")");
+    }
+
+    private static PaymentException invalid(CharSequence amount) {
+        return new PaymentException(ErrorCode.INVALID_AMOUNT, "Invalid amount: " + amount);
+    }
+}
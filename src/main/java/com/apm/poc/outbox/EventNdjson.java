@@ -0,0 +1,70 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.event.PaymentEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Newline-delimited JSON encoding of payment events, one object per line
+ *
+ * {"type":"CREATED","paymentId":"...","provider":"paypal","orderId":"...","amountMinor":4999,"currency":"USD",
+ * "payerReference":"...","state":"created","timestamp":1700000000000,"tenant":"..."}
+ * Field names follow PaymentDetails; absent fields are left out. Written by hand into one reused
+ * StringBuilder per sink, with no per-event maps or reflection.
+ */
+final class EventNdjson {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    /**
+     * Encodes the batch as UTF-8; the instance is reused, so it must stay on one thread
+     */
+    byte[] encode(List<PaymentEvent> batch) {
+        return encodeToString(batch).getBytes(StandardCharsets.UTF_8);
+    }
+
+    String encodeToString(List<PaymentEvent> batch) {
+        text.setLength(0);
+        for (PaymentEvent event : batch) {
+            append(event);
+        }
+        return text.toString();
+    }
+
+    private void append(PaymentEvent event) {
+        text.append("{\"type\":\"").append(event.getType()).append('"');
+        field("paymentId", event.getPaymentId());
+        field("provider", event.getProvider());
+        field("orderId", event.getOrderId());
+        if (event.getAmount() != null) {
+            text.append(",\"amountMinor\":").append(event.getAmount().getMinorUnits());
+            field("currency", event.getAmount().getCurrency().getCode());
+        }
+        field("payerReference", event.getPayerReference());
+        field("state", event.getState());
+        text.append(",\"timestamp\":").append(event.getTimestamp());
+        field("tenant", event.getTenant());
+        text.append("}\n");
+    }
+
+    private void field(String name, String value) {
+        if (value == null) {
+            return;
+        }
+        text.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < 0x20) {
+                text.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            } else {
+                text.append(c);
+            }
+        }
+        text.append('"');
+    }
+}
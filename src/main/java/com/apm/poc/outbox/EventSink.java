@@ -0,0 +1,33 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.event.PaymentEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of outbox batches
+ *
+ * Called only from the outbox batcher thread, so implementations may block and need no locking.
+ * A failed write is retried with the whole batch, up to max-attempts. Delivery is best effort: a
+ * batch still failing after that is dropped, and a write that failed after reaching the consumer
+ * is delivered again, so consumers should tolerate both gaps and duplicates (paymentId and type
+ * identify an event).
+ */
+public interface EventSink extends Closeable {
+
+    /**
+     * Name used in logs and as the sink tag of the outbox metrics
+     */
+    String getName();
+
+    /**
+     * Delivers the events in order; throwing makes the outbox retry the batch
+     */
+    void write(List<PaymentEvent> batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
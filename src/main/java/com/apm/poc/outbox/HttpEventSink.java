@@ -0,0 +1,43 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.config.OutboxProperties;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.http.HttpTransport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * POSTs each batch as one application/x-ndjson request over the shared pooled HttpTransport
+ * Any status other than 2xx counts as a failed delivery and is retried
+ */
+public class HttpEventSink implements EventSink {
+
+    private static final Map<String, String> HEADERS = Collections.singletonMap("Content-Type", "application/x-ndjson");
+
+    private final URI uri;
+    private final HttpTransport transport;
+    private final EventNdjson ndjson = new EventNdjson();
+
+    public HttpEventSink(OutboxProperties.HttpSink settings, HttpTransport transport) {
+        this.uri = URI.create(settings.getUrl());
+        this.transport = transport;
+    }
+
+    @Override
+    public String getName() {
+        return "http";
+    }
+
+    @Override
+    public void write(List<PaymentEvent> batch) throws IOException {
+        String body = ndjson.encodeToString(batch);
+        HttpTransport.Response response = transport.send("POST", uri, HEADERS, body);
+        if (!response.isSuccessful()) {
+            throw new IOException("Event endpoint " + uri + " answered " + response.getStatus());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.event.PaymentEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the most recent events in memory and hands every batch to in-process subscribers
+ * Meant for tests and local debugging; subscribers run on the outbox batcher thread
+ */
+public class InMemoryEventSink implements EventSink {
+
+    private final int retained;
+    private final Deque<PaymentEvent> events = new ArrayDeque<>();
+    private final List<Consumer<List<PaymentEvent>>> subscribers = new CopyOnWriteArrayList<>();
+
+    public InMemoryEventSink(int retained) {
+        this.retained = Math.max(1, retained);
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public void write(List<PaymentEvent> batch) {
+        synchronized (events) {
+            for (PaymentEvent event : batch) {
+                if (events.size() == retained) {
+                    events.removeFirst();
+                }
+                events.addLast(event);
+            }
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // The outbox reuses its batch list, subscribers get their own
+        List<PaymentEvent> copy = Collections.unmodifiableList(new ArrayList<>(batch));
+        for (Consumer<List<PaymentEvent>> subscriber : subscribers) {
+            subscriber.accept(copy);
+        }
+    }
+
+    public void subscribe(Consumer<List<PaymentEvent>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<List<PaymentEvent>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * The retained events, oldest first
+     */
+    public List<PaymentEvent> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    public void clear() {
+        synchronized (events) {
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.config.OutboxProperties;
+import com.apm.poc.event.PaymentEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Appends batches to rolling NDJSON files (events-00000000000000000000.ndjson, ...)
+ *
+ * One write per batch through a FileChannel; files roll at max-file-size and only the newest
+ * max-files are kept. After a restart the sink continues in the newest file. A failed write is
+ * cut off again, so the retried batch never follows a torn line or a partial copy of itself.
+ */
+@Slf4j
+public class NdjsonFileSink implements EventSink {
+
+    private static final String FILE_PREFIX = "events-";
+    private static final String FILE_SUFFIX = ".ndjson";
+
+    private final OutboxProperties.FileSink settings;
+    private final Path directory;
+    private final EventNdjson ndjson = new EventNdjson();
+
+    private FileChannel channel;
+    private long fileNumber = -1;
+    private long size;
+    // Length to cut the file back to on reopen, when cutting off a failed write itself failed
+    private long truncateTo = -1;
+
+    public NdjsonFileSink(OutboxProperties.FileSink settings) {
+        this.settings = settings;
+        this.directory = Paths.get(settings.getDirectory());
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public void write(List<PaymentEvent> batch) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(ndjson.encode(batch));
+        if (channel == null) {
+            open();
+        }
+        if (size > 0 && size + data.remaining() > settings.getMaxFileSize()) {
+            closeChannel();
+            fileNumber++;
+            open();
+        }
+        int length = data.remaining();
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            if (settings.isFsync()) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // Remove whatever part of the batch made it, then reopen on the next attempt
+            try {
+                channel.truncate(size);
+            } catch (IOException truncateFailed) {
+                truncateTo = size;
+                e.addSuppressed(truncateFailed);
+            }
+            closeChannel();
+            throw e;
+        }
+        size += length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeChannel();
+    }
+
+    /**
+     * Opens the current file, or the newest one left by a previous run
+     */
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        if (fileNumber < 0) {
+            List<Path> files = listFiles();
+            fileNumber = files.isEmpty() ? 0 : fileNumber(files.get(files.size() - 1));
+        }
+        Path file = directory.resolve(String.format("%s%020d%s", FILE_PREFIX, fileNumber, FILE_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (truncateTo >= 0) {
+            channel.truncate(truncateTo);
+            truncateTo = -1;
+        }
+        size = channel.size();
+        deleteOldFiles();
+        log.info("Outbox writing events to {}", file.toAbsolutePath());
+    }
+
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = listFiles();
+        for (int i = 0; i < files.size() - Math.max(1, settings.getMaxFiles()); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            FileChannel closing = channel;
+            channel = null;
+            closing.close();
+        }
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long fileNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+}
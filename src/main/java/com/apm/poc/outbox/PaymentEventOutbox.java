@@ -0,0 +1,208 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.config.OutboxProperties;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers payment lifecycle events (create, execute, cancel, webhooks) to downstream sinks
+ *
+ * Request threads only put the event into a lock-free ring buffer and return; they never wait on
+ * a sink. One batcher thread drains the buffer in batches and hands each batch to every sink in
+ * turn, retrying failed deliveries with backoff. Delivery is best effort: a batch still failing
+ * after max-attempts is dropped, and while a sink is slow or down the buffer fills up and the
+ * overflow policy decides which event is lost (newest or oldest).
+ *
+ * payment.outbox.events{outcome}: accepted, dropped_newest, dropped_oldest
+ * payment.outbox.deliveries{sink, outcome}: events delivered or dropped after max-attempts
+ * payment.outbox.backlog: events waiting in the buffer
+ */
+@Slf4j
+public class PaymentEventOutbox implements PaymentEventListener {
+
+    private final OutboxProperties properties;
+    private final EventRingBuffer<PaymentEvent> buffer;
+    private final List<SinkBinding> sinks;
+    private final Thread batcher;
+
+    private final Counter accepted;
+    private final Counter droppedNewest;
+    private final Counter droppedOldest;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    // Set by the batcher before it parks on an empty buffer, so producers only unpark it then
+    private volatile boolean idle;
+
+    public PaymentEventOutbox(OutboxProperties properties, List<EventSink> sinks, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.buffer = new EventRingBuffer<>(properties.getCapacity());
+        this.sinks = sinks.stream()
+                .map(sink -> new SinkBinding(sink, meterRegistry))
+                .collect(Collectors.toList());
+        this.batcher = new Thread(this::drainLoop, "payment-outbox-batcher");
+        this.batcher.setDaemon(true);
+
+        this.accepted = eventCounter(meterRegistry, "accepted");
+        this.droppedNewest = eventCounter(meterRegistry, "dropped_newest");
+        this.droppedOldest = eventCounter(meterRegistry, "dropped_oldest");
+        this.batchSize = DistributionSummary.builder("payment.outbox.batch.size")
+                .description("Events delivered to the sinks per batch")
+                .register(meterRegistry);
+        Gauge.builder("payment.outbox.backlog", buffer, EventRingBuffer::size)
+                .description("Payment events waiting for delivery")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        running = true;
+        batcher.start();
+        log.info("Payment event outbox started with {} slots, sinks {}", buffer.capacity(),
+                sinks.stream().map(binding -> binding.sink.getName()).collect(Collectors.toList()));
+    }
+
+    /**
+     * Delivers what is already buffered (without retries), then closes the sinks
+     */
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(batcher);
+        batcher.join(TimeUnit.SECONDS.toMillis(10));
+        for (SinkBinding binding : sinks) {
+            try {
+                binding.sink.close();
+            } catch (IOException e) {
+                log.warn("Failed to close outbox sink {}: {}", binding.sink.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onEvent(PaymentEvent event) {
+        if (!offer(event)) {
+            droppedNewest.increment();
+            log.debug("Payment event outbox full, dropped {} event for {}", event.getType(), event.getPaymentId());
+            return;
+        }
+        accepted.increment();
+        if (idle) {
+            idle = false;
+            LockSupport.unpark(batcher);
+        }
+    }
+
+    private boolean offer(PaymentEvent event) {
+        if (!running) {
+            return false;
+        }
+        if (buffer.offer(event)) {
+            return true;
+        }
+        if (properties.getOverflow() != OutboxProperties.Overflow.DROP_OLDEST) {
+            return false;
+        }
+        // Other producers compete for the freed slot, so give up after a few rounds
+        for (int attempt = 0; attempt < 3; attempt++) {
+            if (buffer.poll() != null) {
+                droppedOldest.increment();
+            }
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        long pollNanos = properties.getPollInterval().toNanos();
+        List<PaymentEvent> batch = new ArrayList<>(maxBatchSize);
+        while (running || !buffer.isEmpty()) {
+            buffer.drainTo(batch, maxBatchSize);
+            if (batch.isEmpty()) {
+                idle = true;
+                // Re-check after announcing idleness, an event may have arrived in between
+                if (buffer.isEmpty() && running) {
+                    LockSupport.parkNanos(this, pollNanos);
+                }
+                idle = false;
+                continue;
+            }
+            try {
+                deliver(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<PaymentEvent> batch) {
+        batchSize.record(batch.size());
+        for (SinkBinding binding : sinks) {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    binding.sink.write(batch);
+                    binding.delivered.increment(batch.size());
+                    break;
+                } catch (IOException | RuntimeException e) {
+                    if (attempt >= properties.getMaxAttempts() || !running) {
+                        binding.dropped.increment(batch.size());
+                        log.warn("Outbox sink {} failed {} times, dropping {} events: {}",
+                                binding.sink.getName(), attempt, batch.size(), e.getMessage());
+                        break;
+                    }
+                    Duration backoff = retryBackoff(attempt);
+                    log.debug("Outbox sink {} failed (attempt {}), retrying in {} ms: {}",
+                            binding.sink.getName(), attempt, backoff.toMillis(), e.getMessage());
+                    LockSupport.parkNanos(this, backoff.toNanos());
+                }
+            }
+        }
+    }
+
+    private Duration retryBackoff(int attempt) {
+        long base = properties.getRetryBackoff().toMillis();
+        long backoff = base << Math.min(attempt - 1, 10);
+        return Duration.ofMillis(Math.min(backoff, properties.getMaxRetryBackoff().toMillis()));
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payment.outbox.events")
+                .description("Payment events offered to the outbox")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static final class SinkBinding {
+        private final EventSink sink;
+        private final Counter delivered;
+        private final Counter dropped;
+
+        private SinkBinding(EventSink sink, MeterRegistry meterRegistry) {
+            this.sink = sink;
+            this.delivered = deliveryCounter(meterRegistry, sink, "delivered");
+            this.dropped = deliveryCounter(meterRegistry, sink, "dropped");
+        }
+
+        private static Counter deliveryCounter(MeterRegistry meterRegistry, EventSink sink, String outcome) {
+            return Counter.builder("payment.outbox.deliveries")
+                    .description("Payment events per sink, delivered or dropped after the last attempt")
+                    .tag("sink", sink.getName())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.apm.poc.outbox;
+
+import com.apm.poc.config.OutboxProperties;
+import com.apm.poc.event.PaymentEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * Streams batches as NDJSON over one long-lived TCP connection, e.g. to a local log shipper
+ * The connection is opened on first use and again after a failed write
+ */
+@Slf4j
+public class TcpEventSink implements EventSink {
+
+    private final OutboxProperties.TcpSink settings;
+    private final EventNdjson ndjson = new EventNdjson();
+
+    private SocketChannel channel;
+
+    public TcpEventSink(OutboxProperties.TcpSink settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public String getName() {
+        return "tcp";
+    }
+
+    @Override
+    public void write(List<PaymentEvent> batch) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(ndjson.encode(batch));
+        if (channel == null) {
+            connect();
+        }
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            SocketChannel closing = channel;
+            channel = null;
+            closing.close();
+        }
+    }
+
+    private void connect() throws IOException {
+        SocketChannel opened = SocketChannel.open();
+        try {
+            opened.socket().setTcpNoDelay(true);
+            opened.socket().connect(new InetSocketAddress(settings.getHost(), settings.getPort()),
+                    (int) settings.getConnectTimeout().toMillis());
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        channel = opened;
+        log.info("Outbox connected to {}:{}", settings.getHost(), settings.getPort());
+    }
+}
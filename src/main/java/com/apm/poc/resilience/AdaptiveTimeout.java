@@ -0,0 +1,56 @@
+package com.apm.poc.resilience;
+
+import com.apm.poc.config.CircuitBreakerProperties;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timeout derived from recently observed latencies
+ *
+ * Keeps a ring of the last successful call latencies and periodically recomputes
+ * percentile x multiplier, clamped to the configured bounds. Until enough samples
+ * exist the maximum is used, so a cold provider is not cut off early.
+ */
+public class AdaptiveTimeout {
+
+    private static final int RESERVOIR_SIZE = 256;
+    // Recompute the percentile every this many samples instead of on every call
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final CircuitBreakerProperties.Timeout settings;
+    private final AtomicLongArray samples = new AtomicLongArray(RESERVOIR_SIZE);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long timeoutNanos;
+
+    public AdaptiveTimeout(CircuitBreakerProperties.Timeout settings) {
+        this.settings = settings;
+        this.timeoutNanos = settings.getMax().toNanos();
+    }
+
+    public void record(long latencyNanos) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % RESERVOIR_SIZE), latencyNanos);
+        if (n + 1 >= settings.getMinimumSamples() && (n + 1) % RECOMPUTE_EVERY == 0) {
+            recompute((int) Math.min(n + 1, RESERVOIR_SIZE));
+        }
+    }
+
+    public Duration current() {
+        return Duration.ofNanos(timeoutNanos);
+    }
+
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(settings.getPercentile() * size) - 1;
+        long percentile = sorted[Math.max(0, Math.min(index, size - 1))];
+        long candidate = (long) (percentile * settings.getMultiplier());
+        timeoutNanos = Math.max(settings.getMin().toNanos(), Math.min(candidate, settings.getMax().toNanos()));
+    }
+}
@@ -0,0 +1,210 @@
+package com.apm.poc.resilience;
+
+import com.apm.poc.config.CircuitBreakerProperties;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed / open / half-open circuit breaker over a count-based sliding window
+ *
+ * Outcomes are recorded lock-free into a ring of the most recent calls. When the failure rate
+ * in the window crosses the threshold the breaker opens and rejects calls without touching the
+ * provider. After the open duration a few probe calls are let through (half-open): if they all
+ * succeed the breaker closes, any failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    private final String name;
+    private final CircuitBreakerProperties properties;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.closed());
+
+    private final AtomicIntegerArray window;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreaker(String name, CircuitBreakerProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        this.window = new AtomicIntegerArray(properties.getWindowSize());
+    }
+
+    /**
+     * Whether a call may proceed; when true the caller must report the outcome
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            switch (current.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - current.openedAtNanos < properties.getOpenDuration().toNanos()) {
+                        rejected.increment();
+                        return false;
+                    }
+                    snapshot.compareAndSet(current, Snapshot.halfOpen(properties.getHalfOpenCalls()));
+                    break;
+                case HALF_OPEN:
+                    if (current.permits <= 0) {
+                        rejected.increment();
+                        return false;
+                    }
+                    if (snapshot.compareAndSet(current, current.withPermits(current.permits - 1))) {
+                        return true;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown state " + current.state);
+            }
+        }
+    }
+
+    public void onSuccess() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.state != State.HALF_OPEN) {
+                record(false);
+                return;
+            }
+            int successes = current.successes + 1;
+            Snapshot next = successes >= properties.getHalfOpenCalls()
+                    ? Snapshot.closed()
+                    : current.withSuccesses(successes);
+            if (snapshot.compareAndSet(current, next)) {
+                if (next.state == State.CLOSED) {
+                    resetWindow();
+                }
+                return;
+            }
+        }
+    }
+
+    public void onFailure() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.state == State.HALF_OPEN) {
+                // A failed probe re-opens the breaker straight away
+                if (snapshot.compareAndSet(current, Snapshot.open(System.nanoTime()))) {
+                    return;
+                }
+                continue;
+            }
+            record(true);
+            return;
+        }
+    }
+
+    /**
+     * Gives back a permit for a call that never reached the provider (e.g. rejected locally)
+     */
+    public void release() {
+        while (true) {
+            Snapshot current = snapshot.get();
+            if (current.state != State.HALF_OPEN
+                    || snapshot.compareAndSet(current, current.withPermits(current.permits + 1))) {
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return snapshot.get().state;
+    }
+
+    public double getFailureRate() {
+        long total = calls.get();
+        return total == 0 ? 0 : (double) failures.get() / total;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void record(boolean failed) {
+        int slot = (int) (cursor.getAndIncrement() % window.length());
+        int previous = window.getAndSet(slot, failed ? FAILURE : SUCCESS);
+        if (previous == EMPTY) {
+            calls.incrementAndGet();
+        } else if (previous == FAILURE) {
+            failures.decrementAndGet();
+        }
+        if (failed) {
+            failures.incrementAndGet();
+        }
+
+        long total = calls.get();
+        if (failed && total >= properties.getMinimumCalls()
+                && (double) failures.get() / total >= properties.getFailureRateThreshold()) {
+            Snapshot current = snapshot.get();
+            if (current.state == State.CLOSED) {
+                snapshot.compareAndSet(current, Snapshot.open(System.nanoTime()));
+            }
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < window.length(); i++) {
+            int previous = window.getAndSet(i, EMPTY);
+            if (previous != EMPTY) {
+                calls.decrementAndGet();
+                if (previous == FAILURE) {
+                    failures.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable state, swapped atomically
+     */
+    private static final class Snapshot {
+        private final State state;
+        private final long openedAtNanos;
+        private final int permits;
+        private final int successes;
+
+        private Snapshot(State state, long openedAtNanos, int permits, int successes) {
+            this.state = state;
+            this.openedAtNanos = openedAtNanos;
+            this.permits = permits;
+            this.successes = successes;
+        }
+
+        private static Snapshot closed() {
+            return new Snapshot(State.CLOSED, 0, 0, 0);
+        }
+
+        private static Snapshot open(long openedAtNanos) {
+            return new Snapshot(State.OPEN, openedAtNanos, 0, 0);
+        }
+
+        private static Snapshot halfOpen(int permits) {
+            return new Snapshot(State.HALF_OPEN, 0, permits, 0);
+        }
+
+        private Snapshot withPermits(int permits) {
+            return new Snapshot(state, openedAtNanos, permits, successes);
+        }
+
+        private Snapshot withSuccesses(int successes) {
+            return new Snapshot(state, openedAtNanos, permits, successes);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.apm.poc.resilience;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports breaker state per provider operation under /actuator/health
+ * An open breaker does not mark the service down: the router fails over to other providers
+ */
+@Component("circuitBreakers")
+public class CircuitBreakerHealthIndicator extends AbstractHealthIndicator {
+
+    private final CircuitBreakerRegistry registry;
+
+    public CircuitBreakerHealthIndicator(CircuitBreakerRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        int open = 0;
+        for (CircuitBreakerRegistry.Guard guard : registry.getGuards()) {
+            CircuitBreaker breaker = guard.getBreaker();
+            if (breaker.getState() != CircuitBreaker.State.CLOSED) {
+                open++;
+            }
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("state", breaker.getState());
+            details.put("failureRate", Math.round(breaker.getFailureRate() * 1000) / 1000.0);
+            details.put("rejectedCalls", breaker.getRejectedCount());
+            details.put("timeoutMs", guard.getTimeout().current().toMillis());
+            builder.withDetail(breaker.getName(), details);
+        }
+        builder.up().withDetail("notClosed", open);
+    }
+}
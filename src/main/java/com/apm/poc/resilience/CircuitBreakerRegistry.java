@@ -0,0 +1,75 @@
+package com.apm.poc.resilience;
+
+import com.apm.poc.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * One breaker and adaptive timeout per provider and operation (create, execute, details)
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+    // Sorted so health output lists breakers in a stable order
+    private final Map<String, Guard> guards = new ConcurrentSkipListMap<>();
+
+    public CircuitBreakerRegistry(CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Guard guard(String provider, String operation) {
+        return guards.computeIfAbsent(provider + "." + operation, name -> {
+            Guard guard = new Guard(new CircuitBreaker(name, properties), new AdaptiveTimeout(properties.getTimeout()));
+            Gauge.builder("payment.circuit.state", guard.getBreaker(), breaker -> breaker.getState().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .tag("provider", provider)
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            Gauge.builder("payment.circuit.timeout", guard.getTimeout(), timeout -> timeout.current().toMillis())
+                    .description("Current adaptive timeout")
+                    .baseUnit("milliseconds")
+                    .tag("provider", provider)
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+            return guard;
+        });
+    }
+
+    public Collection<Guard> getGuards() {
+        return Collections.unmodifiableCollection(guards.values());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Breaker and timeout protecting a single provider operation
+     */
+    public static final class Guard {
+        private final CircuitBreaker breaker;
+        private final AdaptiveTimeout timeout;
+
+        private Guard(CircuitBreaker breaker, AdaptiveTimeout timeout) {
+            this.breaker = breaker;
+            this.timeout = timeout;
+        }
+
+        public CircuitBreaker getBreaker() {
+            return breaker;
+        }
+
+        public AdaptiveTimeout getTimeout() {
+            return timeout;
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.apm.poc.service;
 
+import com.apm.poc.dto.PaymentDetails;
 import com.apm.poc.dto.PaymentRequest;
 import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.ErrorCode;
 import com.apm.poc.exception.PaymentException;
-import com.paypal.api.payments.Payment;
+import com.apm.poc.id.IdGenerator;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentRecord;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
+import java.time.Instant;
 
 /**
  * Apple Pay implementation of PaymentServiceInterface
@@ -25,6 +29,9 @@ import java.util.UUID;
 @Slf4j
 public class ApplePayService implements PaymentServiceInterface {
 
+    private final PaymentIndex paymentIndex;
+    private final IdGenerator idGenerator;
+
     @Value("${applepay.merchant-id:merchant.com.example}")
     private String merchantId;
 
@@ -34,6 +41,16 @@ public class ApplePayService implements PaymentServiceInterface {
     @Value("${applepay.cancel-url:http://localhost:8080/api/payment/cancel}")
     private String cancelUrl;
 
+    @Override
+    public String getProviderName() {
+        return "applepay";
+    }
+
+    @Override
+    public boolean supportsPaymentId(String paymentId) {
+        return paymentId.startsWith("AP-TXN-");
+    }
+
     /**
      * Creates an Apple Pay payment session
      * In a real implementation, this would:
@@ -48,8 +65,8 @@ public class ApplePayService implements PaymentServiceInterface {
 
         try {
             // Validate input
-            if (request.getAmount() == null || request.getAmount().doubleValue() <= 0) {
-                throw new PaymentException("Invalid amount");
+            if (!request.toMoney().isPositive()) {
+                throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Invalid amount");
             }
 
             // In a real implementation, you would:
@@ -58,7 +75,7 @@ public class ApplePayService implements PaymentServiceInterface {
             // 3. Create a payment session
 
             // Generate mock Apple Pay transaction ID
-            String applePayTransactionId = "AP-TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            String applePayTransactionId = idGenerator.nextId("AP-TXN-");
 
             // Generate mock payment session URL
             String sessionUrl = "https://apple-pay-gateway.apple.com/paymentservices/startSession";
@@ -73,8 +90,10 @@ public class ApplePayService implements PaymentServiceInterface {
                     request.getOrderId()
             );
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🍎 APPLE PAY: Error creating payment: {}", e.getMessage(), e);
+            log.error("🍎 APPLE PAY: Error creating payment: {}", e.getMessage());
             throw new PaymentException("Failed to create Apple Pay payment: " + e.getMessage(), e);
         }
     }
@@ -94,7 +113,7 @@ public class ApplePayService implements PaymentServiceInterface {
         try {
             // Validate Apple Pay transaction ID format
             if (!paymentId.startsWith("AP-TXN-")) {
-                throw new PaymentException("Invalid Apple Pay transaction ID format");
+                throw new PaymentException(ErrorCode.INVALID_PAYMENT_ID, "Invalid Apple Pay transaction ID format");
             }
 
             // In a real implementation, you would:
@@ -107,38 +126,42 @@ public class ApplePayService implements PaymentServiceInterface {
 
             return PaymentResponse.approved(paymentId, null);
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🍎 APPLE PAY: Error processing payment: {}", e.getMessage(), e);
+            log.error("🍎 APPLE PAY: Error processing payment: {}", e.getMessage());
             throw new PaymentException("Failed to process Apple Pay payment: " + e.getMessage(), e);
         }
     }
 
     /**
      * Gets Apple Pay transaction details
-     * Note: The return type uses PayPal's Payment object for now
-     * In a proper implementation, this should be abstracted to a generic payment details object
+     * Details come from the local payment index (rebuilt from the journal on startup)
      */
     @Override
-    public Payment getPaymentDetails(String paymentId) {
+    public PaymentDetails getPaymentDetails(String paymentId) {
         log.info("🍎 APPLE PAY: Fetching payment details for transaction ID: {}", paymentId);
 
         try {
-            // In a real implementation, you would:
-            // 1. Query your payment processor for transaction details
-            // 2. Query your database for stored transaction information
-            // 3. Return the transaction details
-
-            // For now, create a mock Payment object
-            // TODO: Replace with a generic payment details object
-            Payment payment = new Payment();
-            payment.setId(paymentId);
-            payment.setState("approved");
-
-            log.info("🍎 APPLE PAY: Payment details retrieved. State: approved");
-            return payment;
-
+            PaymentRecord record = paymentIndex.find(paymentId)
+                    .orElseThrow(() -> new PaymentException(ErrorCode.PAYMENT_NOT_FOUND, "Apple Pay transaction not found: " + paymentId));
+            PaymentDetails details = PaymentDetails.builder()
+                    .paymentId(record.getPaymentId())
+                    .provider(getProviderName())
+                    .state(record.getState())
+                    .amount(record.getAmount())
+                    .payerReference(record.getPayerReference())
+                    .createTime(Instant.ofEpochMilli(record.getCreatedAt()))
+                    .updateTime(Instant.ofEpochMilli(record.getUpdatedAt()))
+                    .build();
+
+            log.info("🍎 APPLE PAY: Payment details retrieved. State: {}", details.getState());
+            return details;
+
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🍎 APPLE PAY: Failed to get payment details: {}", e.getMessage(), e);
+            log.error("🍎 APPLE PAY: Failed to get payment details: {}", e.getMessage());
             throw new PaymentException("Failed to get Apple Pay payment details: " + e.getMessage(), e);
         }
     }
@@ -0,0 +1,36 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of PaymentServiceInterface
+ * Provider work runs off the servlet threads, so the number of in-flight payments
+ * is bounded by the provider executors rather than by Tomcat's thread pool
+ */
+public interface AsyncPaymentServiceInterface {
+
+    /**
+     * Creates a payment and completes with the approval/authorization URL
+     */
+    CompletableFuture<PaymentResponse> createPayment(PaymentRequest request);
+
+    /**
+     * Executes the payment after user approval/authorization
+     */
+    CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId);
+
+    /**
+     * Gets payment details
+     */
+    CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId);
+
+    /**
+     * Drops any locally cached state of the payment after it changed out of band (e.g. a webhook)
+     */
+    default void invalidate(String paymentId) {
+    }
+}
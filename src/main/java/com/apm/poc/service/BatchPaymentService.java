@@ -0,0 +1,118 @@
+package com.apm.poc.service;
+
+import com.apm.poc.config.BatchPaymentProperties;
+import com.apm.poc.dto.BatchPaymentResponse;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.ErrorLogger;
+import com.apm.poc.exception.PaymentException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Creates many payments with bounded parallelism
+ *
+ * At most maxConcurrency provider calls of a batch are in flight at any time; as soon as one
+ * finishes the next item starts, so a batch takes roughly (items / concurrency) x the slowest
+ * call instead of the sum of all calls. Items fail independently.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BatchPaymentService {
+
+    private final IdempotencyService idempotencyService;
+    private final BatchPaymentProperties properties;
+    private final ErrorLogger errorLogger;
+
+    public CompletableFuture<BatchPaymentResponse> createPayments(List<PaymentRequest> requests) {
+        int total = requests.size();
+        AtomicReferenceArray<BatchPaymentResponse.Item> results = new AtomicReferenceArray<>(total);
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(total);
+        CompletableFuture<BatchPaymentResponse> done = new CompletableFuture<>();
+
+        int lanes = Math.max(1, Math.min(properties.getMaxConcurrency(), total));
+        log.info("Creating batch of {} payments with concurrency {}", total, lanes);
+        for (int lane = 0; lane < lanes; lane++) {
+            startNext(requests, results, nextIndex, remaining, done);
+        }
+        return done;
+    }
+
+    private void startNext(List<PaymentRequest> requests,
+                           AtomicReferenceArray<BatchPaymentResponse.Item> results,
+                           AtomicInteger nextIndex,
+                           AtomicInteger remaining,
+                           CompletableFuture<BatchPaymentResponse> done) {
+        int index = nextIndex.getAndIncrement();
+        if (index >= requests.size()) {
+            return;
+        }
+        PaymentRequest request = requests.get(index);
+
+        CompletableFuture<IdempotencyService.IdempotentResult> call;
+        try {
+            // orderId-based dedupe applies per item, so a retried batch doesn't double-create
+            call = idempotencyService.createPayment(null, request);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        call.whenComplete((result, error) -> {
+            BatchPaymentResponse.Item.ItemBuilder item = BatchPaymentResponse.Item.builder()
+                    .index(index)
+                    .orderId(request.getOrderId());
+            if (error == null) {
+                item.response(result.getResponse());
+            } else {
+                item.error(describe(error));
+            }
+            results.set(index, item.build());
+
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(summarize(results));
+            } else {
+                startNext(requests, results, nextIndex, remaining, done);
+            }
+        });
+    }
+
+    private BatchPaymentResponse summarize(AtomicReferenceArray<BatchPaymentResponse.Item> results) {
+        List<BatchPaymentResponse.Item> items = new ArrayList<>(results.length());
+        int failed = 0;
+        for (int i = 0; i < results.length(); i++) {
+            BatchPaymentResponse.Item item = results.get(i);
+            if (item.getError() != null) {
+                failed++;
+            }
+            items.add(item);
+        }
+        log.info("Batch finished: {} succeeded, {} failed", items.size() - failed, failed);
+        return BatchPaymentResponse.builder()
+                .total(items.size())
+                .succeeded(items.size() - failed)
+                .failed(failed)
+                .results(items)
+                .build();
+    }
+
+    private String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof PaymentException) {
+            PaymentException failure = (PaymentException) cause;
+            errorLogger.record(failure.getCode(), failure);
+            return failure.getMessage();
+        }
+        errorLogger.record(ErrorCode.INTERNAL_ERROR, cause);
+        return "An unexpected error occurred";
+    }
+}
@@ -0,0 +1,95 @@
+package com.apm.poc.service;
+
+import com.apm.poc.cache.SingleFlightCache;
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.tenant.TenantContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * State-aware read-through cache around getPaymentDetails
+ *
+ * Payments in a terminal state never change again and stay cached until evicted by the
+ * size bound; payments that are still pending get a short TTL so pollers see the state
+ * change quickly. Concurrent misses for the same id share one provider call, and
+ * executing a payment or a webhook for it invalidates its entry.
+ *
+ * Entries are kept per tenant, as idempotency keys are, so one merchant's lookup never answers
+ * from details loaded with another merchant's credentials. Invalidation applies to the calling
+ * tenant's entry; only the owning tenant's credentials can load a payment, so that is the one
+ * that matters.
+ */
+public class CachingAsyncPaymentService implements AsyncPaymentServiceInterface {
+
+    private static final Set<String> TERMINAL_STATES = Set.of("approved", "failed", "cancelled", "canceled", "expired");
+
+    private final AsyncPaymentServiceInterface delegate;
+    private final SingleFlightCache<String, PaymentDetails> cache;
+    private final Duration pendingTtl;
+
+    public CachingAsyncPaymentService(AsyncPaymentServiceInterface delegate, int maxEntries, Duration pendingTtl,
+                                      MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = new SingleFlightCache<>(maxEntries);
+        this.pendingTtl = pendingTtl;
+
+        FunctionCounter.builder("payment.details.cache.requests", cache, SingleFlightCache::hitCount)
+                .description("Payment details lookups served from the cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("payment.details.cache.requests", cache, SingleFlightCache::missCount)
+                .description("Payment details lookups that went to the provider")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("payment.details.cache.evictions", cache, SingleFlightCache::evictionCount)
+                .description("Payment details evicted by TTL or size bound")
+                .register(meterRegistry);
+        Gauge.builder("payment.details.cache.size", cache, SingleFlightCache::size)
+                .description("Payment details currently cached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> createPayment(PaymentRequest request) {
+        return delegate.createPayment(request);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId) {
+        String key = key(paymentId);
+        cache.invalidate(key);
+        return delegate.executePayment(paymentId, payerId)
+                .whenComplete((response, error) -> cache.invalidate(key));
+    }
+
+    @Override
+    public CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId) {
+        return cache.getOrLoad(key(paymentId), () -> delegate.getPaymentDetails(paymentId), this::ttlFor);
+    }
+
+    @Override
+    public void invalidate(String paymentId) {
+        cache.invalidate(key(paymentId));
+    }
+
+    private static String key(String paymentId) {
+        String tenantId = TenantContext.current();
+        return tenantId == null ? paymentId : "tenant:" + tenantId + ":" + paymentId;
+    }
+
+    private Duration ttlFor(PaymentDetails details) {
+        return isTerminal(details.getState()) ? SingleFlightCache.NO_EXPIRY : pendingTtl;
+    }
+
+    static boolean isTerminal(String state) {
+        return state != null && TERMINAL_STATES.contains(state.toLowerCase(Locale.ROOT));
+    }
+}
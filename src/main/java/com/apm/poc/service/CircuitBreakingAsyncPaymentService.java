@@ -0,0 +1,158 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.CircuitOpenException;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.exception.ProviderTimeoutException;
+import com.apm.poc.exception.ProviderUnavailableException;
+import com.apm.poc.resilience.CircuitBreaker;
+import com.apm.poc.resilience.CircuitBreakerRegistry;
+import com.paypal.base.exception.HttpErrorException;
+import com.paypal.base.rest.PayPalRESTException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Guards each provider operation with a circuit breaker and an adaptive timeout
+ *
+ * While the breaker is open calls fail immediately with CircuitOpenException instead of
+ * tying up a provider thread. Only upstream trouble (timeouts, I/O errors, 5xx, 429) counts
+ * as a failure; a rejected payment still proves the provider is responding.
+ *
+ * The adaptive timeout runs from the moment a provider thread picks the call up, so time spent
+ * queued behind a saturated executor is neither reported as a provider timeout nor counted
+ * against the breaker; the HTTP read timeout of the call is capped to it as well, so the thread
+ * and connection are freed about when the caller stops waiting.
+ *
+ * Executes are never cut short by the adaptive timeout: giving up locally cannot stop the
+ * provider from capturing the payment, so an execute waits for its answer (bounded by the HTTP
+ * client's own timeouts) instead of being reported as failed while its outcome is unknown.
+ */
+@Slf4j
+public class CircuitBreakingAsyncPaymentService implements AsyncPaymentServiceInterface {
+
+    private final AsyncPaymentServiceInterface delegate;
+    private final String provider;
+    private final CircuitBreakerRegistry.Guard create;
+    private final CircuitBreakerRegistry.Guard execute;
+    private final CircuitBreakerRegistry.Guard details;
+
+    public CircuitBreakingAsyncPaymentService(AsyncPaymentServiceInterface delegate, String provider,
+                                              CircuitBreakerRegistry registry) {
+        this.delegate = delegate;
+        this.provider = provider;
+        this.create = registry.guard(provider, "create");
+        this.execute = registry.guard(provider, "execute");
+        this.details = registry.guard(provider, "details");
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> createPayment(PaymentRequest request) {
+        return guarded(create, true, () -> delegate.createPayment(request));
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId) {
+        return guarded(execute, false, () -> delegate.executePayment(paymentId, payerId));
+    }
+
+    @Override
+    public CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId) {
+        return guarded(details, true, () -> delegate.getPaymentDetails(paymentId));
+    }
+
+    private <T> CompletableFuture<T> guarded(CircuitBreakerRegistry.Guard guard, boolean timed,
+                                             Supplier<CompletableFuture<T>> call) {
+        CircuitBreaker breaker = guard.getBreaker();
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException("Payment provider " + provider
+                    + " is temporarily unavailable (circuit open for " + breaker.getName() + "), please retry later"));
+        }
+
+        Duration timeout = guard.getTimeout().current();
+        long timeoutNanos = timeout.toNanos();
+        ProviderCall providerCall = new ProviderCall(timed ? timeout : null);
+        long submitted = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = ProviderCall.submitWith(providerCall, call);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> guarded = new CompletableFuture<>();
+        if (timed) {
+            CompletableFuture<T> running = result;
+            providerCall.started().thenRun(() -> CompletableFuture.delayedExecutor(timeoutNanos, TimeUnit.NANOSECONDS)
+                    .execute(() -> running.completeExceptionally(new TimeoutException())));
+        }
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                guard.getTimeout().record(System.nanoTime() - providerCall.started().getNow(submitted));
+                breaker.onSuccess();
+                guarded.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof TimeoutException) {
+                breaker.onFailure();
+                log.warn("{} timed out after {} ms", breaker.getName(), TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                guarded.completeExceptionally(new ProviderTimeoutException("Payment provider " + provider
+                        + " did not respond within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", cause));
+                return;
+            }
+            if (cause instanceof ProviderUnavailableException) {
+                // Rejected locally (executor saturated), the provider was never called
+                breaker.release();
+            } else if (isUpstreamFailure(cause)) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            guarded.completeExceptionally(cause);
+        });
+        return guarded;
+    }
+
+    /**
+     * Whether an error says the provider is unhealthy rather than that the payment itself was refused
+     */
+    private static boolean isUpstreamFailure(Throwable error) {
+        Throwable root = error;
+        for (Throwable current = error; current != null; current = current.getCause() == current ? null : current.getCause()) {
+            int status = httpStatus(current);
+            if (status > 0) {
+                return status == 408 || status == 429 || status >= 500;
+            }
+            root = current;
+        }
+        // A bare PaymentException at the root is our own validation unless it flags a bad provider reply
+        return !(root instanceof PaymentException) || ((PaymentException) root).getCode() == ErrorCode.PROVIDER_ERROR;
+    }
+
+    /**
+     * HTTP status carried by a PayPal SDK exception, 0 if none
+     */
+    private static int httpStatus(Throwable error) {
+        if (error instanceof PayPalRESTException) {
+            return ((PayPalRESTException) error).getResponsecode();
+        }
+        if (error instanceof HttpErrorException) {
+            return ((HttpErrorException) error).getResponsecode();
+        }
+        return 0;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,92 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventPublisher;
+import com.apm.poc.event.PaymentEventType;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.tenant.TenantContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Publishes a lifecycle event for every payment created or executed through the provider
+ *
+ * An execution only counts as failed when the provider answered it: a non-approved result or a
+ * decline. Local errors such as an open circuit, a saturated executor or a timeout say nothing
+ * about the payment at the provider, so they publish no event. A decline does not always mean the
+ * payment failed either (PAYMENT_ALREADY_DONE, a declined instrument the buyer can replace), so
+ * when StatefulAsyncPaymentService reconciles declines from the provider's details it publishes
+ * their outcome and this layer does not.
+ */
+public class EventPublishingAsyncPaymentService implements AsyncPaymentServiceInterface {
+
+    private final AsyncPaymentServiceInterface delegate;
+    private final String provider;
+    private final PaymentEventPublisher publisher;
+    private final boolean publishDeclines;
+
+    /**
+     * @param publishDeclines false when a layer above reconciles declines and publishes their outcome
+     */
+    public EventPublishingAsyncPaymentService(AsyncPaymentServiceInterface delegate, String provider,
+                                              PaymentEventPublisher publisher, boolean publishDeclines) {
+        this.delegate = delegate;
+        this.provider = provider;
+        this.publisher = publisher;
+        this.publishDeclines = publishDeclines;
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> createPayment(PaymentRequest request) {
+        // Completion runs on a provider thread, where the caller's tenant is no longer bound
+        String tenantId = TenantContext.current();
+        return delegate.createPayment(request).whenComplete((response, error) -> {
+            if (error == null) {
+                publisher.publish(PaymentEvent.builder()
+                        .type(PaymentEventType.CREATED)
+                        .paymentId(response.getPaymentId())
+                        .provider(provider)
+                        .orderId(request.getOrderId())
+                        .amount(request.toMoney())
+                        .payerReference(request.getUserEmail())
+                        .state(response.getStatus())
+                        .timestamp(System.currentTimeMillis())
+                        .tenant(tenantId)
+                        .build());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId) {
+        return delegate.executePayment(paymentId, payerId).whenComplete((response, error) -> {
+            if (error != null && (!publishDeclines || !isDecline(error))) {
+                return;
+            }
+            boolean approved = error == null && "approved".equals(response.getStatus());
+            publisher.publish(PaymentEvent.builder()
+                    .type(approved ? PaymentEventType.EXECUTED : PaymentEventType.FAILED)
+                    .paymentId(paymentId)
+                    .provider(provider)
+                    .state(approved ? "approved" : "failed")
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+        });
+    }
+
+    private static boolean isDecline(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof PaymentException
+                && ((PaymentException) cause).getCode() == ErrorCode.PROVIDER_DECLINED;
+    }
+
+    @Override
+    public CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId) {
+        return delegate.getPaymentDetails(paymentId);
+    }
+}
@@ -0,0 +1,76 @@
+package com.apm.poc.service;
+
+import com.apm.poc.admission.ProviderLoad;
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.ProviderUnavailableException;
+import com.apm.poc.http.ReadTimeout;
+import com.apm.poc.tenant.TenantContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a blocking PaymentServiceInterface on a dedicated, bounded executor
+ * When the executor is saturated the call fails fast instead of queueing without limit
+ * Calls are counted in ProviderLoad from submission until they finish, for load shedding
+ * A ProviderCall bound by the circuit breaker is told when its task starts and caps its read timeout
+ */
+public class ExecutorAsyncPaymentService implements AsyncPaymentServiceInterface {
+
+    private final PaymentServiceInterface delegate;
+    private final Executor executor;
+    private final ProviderLoad providerLoad;
+
+    public ExecutorAsyncPaymentService(PaymentServiceInterface delegate, Executor executor, ProviderLoad providerLoad) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.providerLoad = providerLoad;
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> createPayment(PaymentRequest request) {
+        return submit(() -> delegate.createPayment(request));
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId) {
+        return submit(() -> delegate.executePayment(paymentId, payerId));
+    }
+
+    @Override
+    public CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId) {
+        return submit(() -> delegate.getPaymentDetails(paymentId));
+    }
+
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        providerLoad.started();
+        // Provider threads serve every tenant; carry the caller's over with the task
+        String tenantId = TenantContext.current();
+        ProviderCall providerCall = ProviderCall.current();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    if (providerCall == null) {
+                        return TenantContext.callWith(tenantId, call);
+                    }
+                    providerCall.markStarted();
+                    return ReadTimeout.callWith(providerCall.getReadTimeout(), () -> TenantContext.callWith(tenantId, call));
+                } finally {
+                    providerLoad.finished();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            providerLoad.finished();
+            return CompletableFuture.failedFuture(new ProviderUnavailableException(
+                    "Payment provider " + delegate.getProviderName() + " is at capacity, please retry later", e));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.apm.poc.service;
+
+import com.apm.poc.cache.SingleFlightCache;
+import com.apm.poc.config.IdempotencyProperties;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.IdempotencyKeyReuseException;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.tenant.TenantContext;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deduplicates payment creation by Idempotency-Key header (or orderId as a fallback)
+ *
+ * The first request for a key calls the provider; concurrent duplicates wait on that
+ * in-flight call and later retries get the stored response, so client retry storms
+ * never turn into duplicate provider payments. Failed calls are not stored.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final AsyncPaymentServiceInterface paymentService;
+    private final IdempotencyProperties properties;
+    private final SingleFlightCache<String, StoredResponse> responses;
+
+    public IdempotencyService(AsyncPaymentServiceInterface paymentService, IdempotencyProperties properties) {
+        this.paymentService = paymentService;
+        this.properties = properties;
+        this.responses = new SingleFlightCache<>(properties.getMaxEntries());
+    }
+
+    /**
+     * Creates the payment, or replays the response of an earlier request with the same key
+     *
+     * @param idempotencyKey value of the Idempotency-Key header, may be null
+     */
+    public CompletableFuture<IdempotentResult> createPayment(String idempotencyKey, PaymentRequest request) {
+        return createPayment(idempotencyKey, request, () -> { });
+    }
+
+    /**
+     * As above, running admit just before the provider is called; replays and requests joining an
+     * in-flight call skip it, so retries are not charged against rate limits
+     *
+     * @param admit throws to reject the request, e.g. AdmissionService.admitPayer
+     */
+    public CompletableFuture<IdempotentResult> createPayment(String idempotencyKey, PaymentRequest request,
+                                                             Runnable admit) {
+        String key = resolveKey(idempotencyKey, request);
+        if (key == null) {
+            admit.run();
+            return paymentService.createPayment(request)
+                    .thenApply(response -> new IdempotentResult(response, false));
+        }
+
+        AtomicBoolean executed = new AtomicBoolean();
+        return responses.getOrLoad(key, () -> {
+                    admit.run();
+                    executed.set(true);
+                    return paymentService.createPayment(request)
+                            .thenApply(response -> new StoredResponse(request, response));
+                }, stored -> properties.getTtl())
+                .thenApply(stored -> {
+                    if (!stored.getRequest().equals(request)) {
+                        throw new IdempotencyKeyReuseException(
+                                "Idempotency key was already used for a different payment request");
+                    }
+                    boolean replayed = !executed.get();
+                    if (replayed) {
+                        log.info("Replaying stored response for idempotency key {}", key);
+                    }
+                    return new IdempotentResult(stored.getResponse(), replayed);
+                });
+    }
+
+    /**
+     * Whether creating the request without a header key would be answered by an earlier or in-flight
+     * request with the same orderId, so batches can leave such items uncharged
+     */
+    public boolean isReplay(PaymentRequest request) {
+        String key = resolveKey(null, request);
+        return key != null && responses.contains(key);
+    }
+
+    private String resolveKey(String idempotencyKey, PaymentRequest request) {
+        // Keys are only unique per merchant
+        String tenantId = TenantContext.current();
+        String scope = tenantId == null ? "" : "tenant:" + tenantId + ":";
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+                throw new PaymentException(ErrorCode.IDEMPOTENCY_KEY_INVALID, "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+            }
+            return scope + "key:" + idempotencyKey;
+        }
+        if (properties.isUseOrderId() && request.getOrderId() != null && !request.getOrderId().isBlank()) {
+            return scope + "order:" + request.getOrderId();
+        }
+        return null;
+    }
+
+    @Value
+    private static class StoredResponse {
+        PaymentRequest request;
+        PaymentResponse response;
+    }
+
+    @Value
+    public static class IdempotentResult {
+        PaymentResponse response;
+        // True when the response was served from an earlier request with the same key
+        boolean replayed;
+    }
+}
@@ -0,0 +1,128 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Times every call into a provider, per operation and outcome
+ *
+ * Sits directly around the blocking provider, so the timer covers the provider's own work
+ * (SDK, HTTP, mapping) and excludes executor queueing, caching and routing above it.
+ *
+ * payment.provider.requests{provider, operation, outcome, exception}
+ *   outcome: success, failed, cancelled or exception; exception: root cause class or none
+ * payment.provider.inflight{provider, operation}
+ */
+public class MeteredPaymentService implements PaymentServiceInterface {
+
+    private static final String CREATE = "create";
+    private static final String EXECUTE = "execute";
+    private static final String DETAILS = "details";
+
+    private final PaymentServiceInterface delegate;
+    private final MeterRegistry meterRegistry;
+    private final String provider;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    // Registry lookups hash every tag, so resolved timers are kept per tag combination
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MeteredPaymentService(PaymentServiceInterface delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.provider = delegate.getProviderName();
+        for (String operation : new String[]{CREATE, EXECUTE, DETAILS}) {
+            AtomicInteger counter = new AtomicInteger();
+            inFlight.put(operation, counter);
+            Gauge.builder("payment.provider.inflight", counter, AtomicInteger::get)
+                    .description("Provider calls currently in progress")
+                    .tag("provider", provider)
+                    .tag("operation", operation)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public String getProviderName() {
+        return provider;
+    }
+
+    @Override
+    public boolean supportsPaymentId(String paymentId) {
+        return delegate.supportsPaymentId(paymentId);
+    }
+
+    @Override
+    public PaymentResponse createPayment(PaymentRequest request) {
+        return measure(CREATE, () -> delegate.createPayment(request), PaymentResponse::getStatus);
+    }
+
+    @Override
+    public PaymentResponse executePayment(String paymentId, String payerId) {
+        return measure(EXECUTE, () -> delegate.executePayment(paymentId, payerId), PaymentResponse::getStatus);
+    }
+
+    @Override
+    public PaymentDetails getPaymentDetails(String paymentId) {
+        // Details are a lookup: any state returned is a successful call
+        return measure(DETAILS, () -> delegate.getPaymentDetails(paymentId), details -> null);
+    }
+
+    private <T> T measure(String operation, Supplier<T> call, Function<T, String> status) {
+        AtomicInteger counter = inFlight.get(operation);
+        counter.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            timer(operation, outcome(status.apply(result)), "none").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            timer(operation, "exception", rootCause(e).getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            counter.decrementAndGet();
+        }
+    }
+
+    private Timer timer(String operation, String outcome, String exception) {
+        return timers.computeIfAbsent(operation + '|' + outcome + '|' + exception, key -> Timer.builder("payment.provider.requests")
+                .description("Latency of calls into the payment provider")
+                .tag("provider", provider)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry));
+    }
+
+    private static String outcome(String status) {
+        if ("failed".equals(status)) {
+            return "failed";
+        }
+        if ("cancelled".equals(status)) {
+            return "cancelled";
+        }
+        return "success";
+    }
+
+    /**
+     * Services wrap everything in PaymentException, the root cause says what actually went wrong
+     */
+    private static Class<?> rootCause(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getClass();
+    }
+}
@@ -1,17 +1,20 @@
 package com.apm.poc.service;
 
+import com.apm.poc.dto.PaymentDetails;
 import com.apm.poc.dto.PaymentRequest;
 import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.ErrorCode;
 import com.apm.poc.exception.PaymentException;
-import com.paypal.api.payments.*;
+import com.apm.poc.id.IdGenerator;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentRecord;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.time.Instant;
 
 /**
  * Mock implementation of Apple Pay Service for testing without Apple Pay credentials
@@ -19,15 +22,29 @@ import java.util.UUID;
  */
 @Service("applePayService")
 @Profile("mock-applepay")
+@RequiredArgsConstructor
 @Slf4j
 public class MockApplePayService implements PaymentServiceInterface {
 
+    private final PaymentIndex paymentIndex;
+    private final IdGenerator idGenerator;
+
     @Value("${applepay.return-url:http://localhost:8080/api/payment/success}")
     private String returnUrl;
 
     @Value("${applepay.cancel-url:http://localhost:8080/api/payment/cancel}")
     private String cancelUrl;
 
+    @Override
+    public String getProviderName() {
+        return "applepay";
+    }
+
+    @Override
+    public boolean supportsPaymentId(String paymentId) {
+        return paymentId.startsWith("AP-MOCK-");
+    }
+
     /**
      * Creates a mock Apple Pay payment session
      */
@@ -38,16 +55,16 @@ public class MockApplePayService implements PaymentServiceInterface {
 
         try {
             // Validate input
-            if (request.getAmount() == null || request.getAmount().doubleValue() <= 0) {
-                throw new PaymentException("Invalid amount");
+            if (!request.toMoney().isPositive()) {
+                throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Invalid amount");
             }
 
             // Generate mock Apple Pay transaction ID
-            String mockTransactionId = "AP-MOCK-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            String mockTransactionId = idGenerator.nextId("AP-MOCK-");
 
             // Generate mock Apple Pay payment session URL
-            String mockSessionUrl = "http://localhost:8080/mock-applepay-session?token=MOCK-AP-TOKEN-" +
-                                   UUID.randomUUID().toString().substring(0, 8).toUpperCase() +
+            String mockSessionUrl = "http://localhost:8080/mock-applepay-session?token=" +
+                                   idGenerator.nextId("MOCK-AP-TOKEN-") +
                                    "&transactionId=" + mockTransactionId;
 
             log.info("🍎 MOCK APPLE PAY: Payment session created successfully");
@@ -63,8 +80,10 @@ public class MockApplePayService implements PaymentServiceInterface {
                     request.getOrderId()
             );
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🍎 MOCK APPLE PAY: Error creating mock payment: {}", e.getMessage(), e);
+            log.error("🍎 MOCK APPLE PAY: Error creating mock payment: {}", e.getMessage());
             throw new PaymentException("Failed to create mock Apple Pay payment: " + e.getMessage(), e);
         }
     }
@@ -79,7 +98,7 @@ public class MockApplePayService implements PaymentServiceInterface {
         try {
             // Validate mock transaction ID format
             if (!paymentId.startsWith("AP-MOCK-")) {
-                throw new PaymentException("Invalid mock Apple Pay transaction ID format");
+                throw new PaymentException(ErrorCode.INVALID_PAYMENT_ID, "Invalid mock Apple Pay transaction ID format");
             }
 
             // Simulate payment processing delay
@@ -89,8 +108,10 @@ public class MockApplePayService implements PaymentServiceInterface {
 
             return PaymentResponse.approved(paymentId, null);
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🍎 MOCK APPLE PAY: Error processing mock payment: {}", e.getMessage(), e);
+            log.error("🍎 MOCK APPLE PAY: Error processing mock payment: {}", e.getMessage());
             throw new PaymentException("Failed to process mock Apple Pay payment: " + e.getMessage(), e);
         }
     }
@@ -99,48 +120,46 @@ public class MockApplePayService implements PaymentServiceInterface {
      * Gets mock Apple Pay transaction details
      */
     @Override
-    public Payment getPaymentDetails(String paymentId) {
+    public PaymentDetails getPaymentDetails(String paymentId) {
         log.info("🍎 MOCK APPLE PAY: Fetching payment details for transaction ID: {}", paymentId);
 
         try {
             // Validate mock transaction ID format
             if (!paymentId.startsWith("AP-MOCK-")) {
-                throw new PaymentException("Invalid mock Apple Pay transaction ID format");
+                throw new PaymentException(ErrorCode.INVALID_PAYMENT_ID, "Invalid mock Apple Pay transaction ID format");
+            }
+
+            // Use the recorded payment when we created it, otherwise fall back to canned data
+            PaymentRecord record = paymentIndex.find(paymentId).orElse(null);
+            PaymentDetails details;
+            if (record != null) {
+                details = PaymentDetails.builder()
+                        .paymentId(paymentId)
+                        .provider(getProviderName())
+                        .state(record.getState())
+                        .amount(record.getAmount())
+                        .payerReference(record.getPayerReference())
+                        .createTime(Instant.ofEpochMilli(record.getCreatedAt()))
+                        .updateTime(Instant.ofEpochMilli(record.getUpdatedAt()))
+                        .build();
+            } else {
+                details = PaymentDetails.builder()
+                        .paymentId(paymentId)
+                        .provider(getProviderName())
+                        .state("approved")
+                        .amountMinor(10000L)
+                        .currency("USD")
+                        .payerReference("mock-applepay-user@example.com")
+                        .build();
             }
 
-            // Create a mock Payment object
-            Payment payment = new Payment();
-            payment.setId(paymentId);
-            payment.setState("approved");
-            payment.setIntent("sale");
-
-            // Add mock transaction details
-            Transaction transaction = new Transaction();
-            Amount amount = new Amount();
-            amount.setCurrency("USD");
-            amount.setTotal("100.00");
-            transaction.setAmount(amount);
-            transaction.setDescription("Mock Apple Pay Transaction");
-
-            List<Transaction> transactions = new ArrayList<>();
-            transactions.add(transaction);
-            payment.setTransactions(transactions);
-
-            // Add mock payer info
-            Payer payer = new Payer();
-            payer.setPaymentMethod("apple_pay");
-            PayerInfo payerInfo = new PayerInfo();
-            payerInfo.setEmail("mock-applepay-user@example.com");
-            payerInfo.setFirstName("Mock");
-            payerInfo.setLastName("Apple Pay User");
-            payer.setPayerInfo(payerInfo);
-            payment.setPayer(payer);
-
-            log.info("🍎 MOCK APPLE PAY: Payment details retrieved successfully. State: approved");
-            return payment;
+            log.info("🍎 MOCK APPLE PAY: Payment details retrieved successfully. State: {}", details.getState());
+            return details;
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🍎 MOCK APPLE PAY: Failed to get payment details: {}", e.getMessage(), e);
+            log.error("🍎 MOCK APPLE PAY: Failed to get payment details: {}", e.getMessage());
             throw new PaymentException("Failed to get mock Apple Pay payment details: " + e.getMessage(), e);
         }
     }
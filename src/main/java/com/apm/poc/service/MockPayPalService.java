@@ -1,32 +1,49 @@
 package com.apm.poc.service;
 
+import com.apm.poc.dto.PaymentDetails;
 import com.apm.poc.dto.PaymentRequest;
 import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.ErrorCode;
 import com.apm.poc.exception.PaymentException;
-import com.paypal.api.payments.*;
+import com.apm.poc.id.IdGenerator;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.time.Instant;
 
 /**
  * Mock implementation of PayPalService for testing without PayPal credentials
  */
 @Service("payPalService")
 @Profile("mock")
+@RequiredArgsConstructor
 @Slf4j
 public class MockPayPalService implements PaymentServiceInterface {
 
+    private static final Instant MOCK_CREATE_TIME = Instant.parse("2025-12-29T10:00:00Z");
+    private static final Instant MOCK_UPDATE_TIME = Instant.parse("2025-12-29T10:01:00Z");
+
+    private final IdGenerator idGenerator;
+
     @Value("${paypal.return-url:http://localhost:8080/api/payment/success}")
     private String returnUrl;
 
     @Value("${paypal.cancel-url:http://localhost:8080/api/payment/cancel}")
     private String cancelUrl;
 
+    @Override
+    public String getProviderName() {
+        return "paypal";
+    }
+
+    @Override
+    public boolean supportsPaymentId(String paymentId) {
+        return paymentId.startsWith("MOCK-PAY-");
+    }
+
     /**
      * Creates a mock PayPal payment response
      */
@@ -36,15 +53,15 @@ public class MockPayPalService implements PaymentServiceInterface {
 
         try {
             // Validate input
-            if (request.getAmount() == null || request.getAmount().doubleValue() <= 0) {
-                throw new PaymentException("Invalid amount");
+            if (!request.toMoney().isPositive()) {
+                throw new PaymentException(ErrorCode.INVALID_AMOUNT, "Invalid amount");
             }
 
             // Generate mock payment ID
-            String mockPaymentId = "MOCK-PAY-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            String mockPaymentId = idGenerator.nextId("MOCK-PAY-");
 
             // Generate mock approval URL
-            String mockToken = "MOCK-TOKEN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            String mockToken = idGenerator.nextId("MOCK-TOKEN-");
             String approvalUrl = "http://localhost:8080/mock-paypal-approval?token=" + mockToken +
                                "&paymentId=" + mockPaymentId;
 
@@ -60,8 +77,10 @@ public class MockPayPalService implements PaymentServiceInterface {
                     request.getOrderId()
             );
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🎭 MOCK: Error creating mock payment: {}", e.getMessage(), e);
+            log.error("🎭 MOCK: Error creating mock payment: {}", e.getMessage());
             throw new PaymentException("Failed to create mock payment: " + e.getMessage(), e);
         }
     }
@@ -75,15 +94,17 @@ public class MockPayPalService implements PaymentServiceInterface {
         try {
             // Validate mock payment ID format
             if (!paymentId.startsWith("MOCK-PAY-")) {
-                throw new PaymentException("Invalid mock payment ID format");
+                throw new PaymentException(ErrorCode.INVALID_PAYMENT_ID, "Invalid mock payment ID format");
             }
 
             log.info("🎭 MOCK: Payment executed successfully. State: approved");
 
             return PaymentResponse.approved(paymentId, null);
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🎭 MOCK: Error executing mock payment: {}", e.getMessage(), e);
+            log.error("🎭 MOCK: Error executing mock payment: {}", e.getMessage());
             throw new PaymentException("Failed to execute mock payment: " + e.getMessage(), e);
         }
     }
@@ -91,64 +112,28 @@ public class MockPayPalService implements PaymentServiceInterface {
     /**
      * Gets mock payment details
      */
-    public Payment getPaymentDetails(String paymentId) {
+    public PaymentDetails getPaymentDetails(String paymentId) {
         log.info("🎭 MOCK: Fetching payment details for payment ID: {}", paymentId);
 
         try {
-            // Create a mock Payment object
-            Payment payment = new Payment();
-            payment.setId(paymentId);
-            payment.setState("approved");
-            payment.setIntent("sale");
-            payment.setCreateTime("2025-12-29T10:00:00Z");
-            payment.setUpdateTime("2025-12-29T10:01:00Z");
-
-            // Create mock payer
-            Payer payer = new Payer();
-            payer.setPaymentMethod("paypal");
-            payer.setStatus("VERIFIED");
-
-            PayerInfo payerInfo = new PayerInfo();
-            payerInfo.setEmail("mock-user@example.com");
-            payerInfo.setFirstName("Mock");
-            payerInfo.setLastName("User");
-            payerInfo.setPayerId("MOCK-PAYER-123");
-            payer.setPayerInfo(payerInfo);
-            payment.setPayer(payer);
-
-            // Create mock transaction
-            Transaction transaction = new Transaction();
-            Amount amount = new Amount();
-            amount.setCurrency("USD");
-            amount.setTotal("10.00");
-            transaction.setAmount(amount);
-            transaction.setDescription("Mock payment transaction");
-
-            List<Transaction> transactions = new ArrayList<>();
-            transactions.add(transaction);
-            payment.setTransactions(transactions);
-
-            // Create mock links
-            Links approvalLink = new Links();
-            approvalLink.setHref("http://localhost:8080/mock-paypal-approval?token=MOCK-TOKEN");
-            approvalLink.setRel("approval_url");
-            approvalLink.setMethod("REDIRECT");
-
-            Links selfLink = new Links();
-            selfLink.setHref("http://localhost:8080/api/payment/" + paymentId);
-            selfLink.setRel("self");
-            selfLink.setMethod("GET");
-
-            List<Links> links = new ArrayList<>();
-            links.add(approvalLink);
-            links.add(selfLink);
-            payment.setLinks(links);
+            PaymentDetails details = PaymentDetails.builder()
+                    .paymentId(paymentId)
+                    .provider(getProviderName())
+                    .state("approved")
+                    .amountMinor(1000L)
+                    .currency("USD")
+                    .payerReference("MOCK-PAYER-123")
+                    .createTime(MOCK_CREATE_TIME)
+                    .updateTime(MOCK_UPDATE_TIME)
+                    .build();
 
             log.info("🎭 MOCK: Payment details retrieved. State: approved");
-            return payment;
+            return details;
 
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("🎭 MOCK: Failed to get payment details: {}", e.getMessage(), e);
+            log.error("🎭 MOCK: Failed to get payment details: {}", e.getMessage());
             throw new PaymentException("Failed to get mock payment details: " + e.getMessage(), e);
         }
     }
@@ -0,0 +1,141 @@
+package com.apm.poc.service;
+
+import com.apm.poc.http.HttpTransport;
+import com.google.gson.JsonObject;
+import com.paypal.api.payments.Error;
+import com.paypal.api.payments.Payment;
+import com.paypal.api.payments.PaymentExecution;
+import com.paypal.base.exception.HttpErrorException;
+import com.paypal.base.rest.JSONFormatter;
+import com.paypal.base.rest.PayPalRESTException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Calls the PayPal REST API through the shared pooled HttpTransport
+ *
+ * Replaces the SDK's own HttpURLConnection-based calls; request and response bodies still
+ * use the SDK model classes and its JSON mapping, and errors are raised as PayPalRESTException
+ * with the response code set, as the SDK does.
+ */
+public class PayPalApiClient {
+
+    public static final String SANDBOX_URL = "https://api.sandbox.paypal.com/";
+    public static final String LIVE_URL = "https://api.paypal.com/";
+
+    private final HttpTransport transport;
+    private final String baseUrl;
+
+    public PayPalApiClient(HttpTransport transport, String baseUrl) {
+        this.transport = transport;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
+    /**
+     * Client credentials grant
+     */
+    public AccessToken fetchAccessToken(String clientId, String clientSecret) throws PayPalRESTException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        String credentials = clientId + ":" + clientSecret;
+        headers.put("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        headers.put("Content-Type", "application/x-www-form-urlencoded");
+        headers.put("Accept", "application/json");
+
+        String body = send("POST", "v1/oauth2/token", headers, "grant_type=client_credentials");
+        JsonObject json = JSONFormatter.fromJSON(body, JsonObject.class);
+        if (json == null || !json.has("access_token") || !json.has("expires_in")) {
+            throw new PayPalRESTException("Unexpected token response from PayPal");
+        }
+        return new AccessToken(json.get("access_token").getAsString(), json.get("expires_in").getAsLong());
+    }
+
+    /**
+     * requestId is sent as PayPal-Request-Id so PayPal answers a retried create with the payment it
+     * already made; it must be derived from the order, not generated per attempt. Null sends none.
+     */
+    public Payment createPayment(Payment payment, String requestId, String accessToken) throws PayPalRESTException {
+        return call("POST", "v1/payments/payment", accessToken, requestId, payment);
+    }
+
+    /**
+     * requestId as for createPayment, derived from the payment and payer
+     */
+    public Payment executePayment(String paymentId, PaymentExecution execution, String requestId,
+                                  String accessToken) throws PayPalRESTException {
+        return call("POST", "v1/payments/payment/" + encode(paymentId) + "/execute", accessToken, requestId, execution);
+    }
+
+    public Payment getPayment(String paymentId, String accessToken) throws PayPalRESTException {
+        return call("GET", "v1/payments/payment/" + encode(paymentId), accessToken, null, null);
+    }
+
+    private Payment call(String method, String path, String accessToken, String requestId,
+                         Object payload) throws PayPalRESTException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Authorization", "Bearer " + accessToken);
+        headers.put("Content-Type", "application/json");
+        headers.put("Accept", "application/json");
+        if (requestId != null) {
+            headers.put("PayPal-Request-Id", requestId);
+        }
+        String body = send(method, path, headers, payload != null ? JSONFormatter.toJSON(payload) : null);
+        return JSONFormatter.fromJSON(body, Payment.class);
+    }
+
+    private String send(String method, String path, Map<String, String> headers, String body) throws PayPalRESTException {
+        HttpTransport.Response response;
+        try {
+            response = transport.send(method, URI.create(baseUrl + path), headers, body);
+        } catch (IOException e) {
+            throw new PayPalRESTException("PayPal request failed: " + method + " " + path + ": " + e.getMessage(), e);
+        }
+        if (!response.isSuccessful()) {
+            throw error(response);
+        }
+        return response.getBody();
+    }
+
+    /**
+     * Same shape as the SDK's own errors: message with code and body, status and parsed details
+     */
+    private static PayPalRESTException error(HttpTransport.Response response) {
+        String message = "Response code: " + response.getStatus() + "\tError response: " + response.getBody();
+        HttpErrorException cause = new HttpErrorException(response.getStatus(), response.getBody(), message, null);
+        PayPalRESTException exception = new PayPalRESTException(message, cause);
+        exception.setResponsecode(response.getStatus());
+        try {
+            exception.setDetails(JSONFormatter.fromJSON(response.getBody(), Error.class));
+        } catch (RuntimeException e) {
+            // Not a PayPal error body (e.g. from a proxy); the raw body is in the message
+        }
+        return exception;
+    }
+
+    private static String encode(String pathSegment) {
+        return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8);
+    }
+
+    public static final class AccessToken {
+        private final String value;
+        private final long expiresInSeconds;
+
+        public AccessToken(String value, long expiresInSeconds) {
+            this.value = value;
+            this.expiresInSeconds = expiresInSeconds;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getExpiresInSeconds() {
+            return expiresInSeconds;
+        }
+    }
+}
@@ -1,22 +1,30 @@
 package com.apm.poc.service;
 
-import com.apm.poc.config.PayPalConfig;
+import com.apm.poc.config.PayPalTenantClients;
+import com.apm.poc.config.TenantProperties;
+import com.apm.poc.dto.PaymentDetails;
 import com.apm.poc.dto.PaymentRequest;
 import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.ErrorCode;
 import com.apm.poc.exception.PaymentException;
+import com.apm.poc.money.CurrencyUnit;
+import com.apm.poc.money.Money;
+import com.apm.poc.tenant.TenantContext;
 import com.paypal.api.payments.*;
-import com.paypal.base.rest.APIContext;
 import com.paypal.base.rest.PayPalRESTException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @Service("payPalService")
 @Profile("!mock & !mock-applepay")
@@ -24,7 +32,9 @@ import java.util.List;
 @Slf4j
 public class PayPalService implements PaymentServiceInterface {
 
-    private final APIContext apiContext;
+    // Client and token of the current tenant, or the default paypal.* ones
+    private final PayPalTenantClients clients;
+    private final TenantProperties tenantProperties;
 
     @Value("${paypal.return-url:http://localhost:8080/api/payment/success}")
     private String returnUrl;
@@ -32,6 +42,16 @@ public class PayPalService implements PaymentServiceInterface {
     @Value("${paypal.cancel-url:http://localhost:8080/api/payment/cancel}")
     private String cancelUrl;
 
+    @Override
+    public String getProviderName() {
+        return "paypal";
+    }
+
+    @Override
+    public boolean supportsPaymentId(String paymentId) {
+        return paymentId.startsWith("PAYID-") || paymentId.startsWith("PAY-");
+    }
+
     /**
      * Creates a PayPal payment and returns the approval URL
      */
@@ -40,10 +60,11 @@ public class PayPalService implements PaymentServiceInterface {
                 request.getUserEmail(), request.getAmount(), request.getCurrency());
 
         try {
-            // Create amount
+            // Create amount, with the currency's own number of decimals
+            Money total = request.toMoney();
             Amount amount = new Amount();
-            amount.setCurrency(request.getCurrency());
-            amount.setTotal(formatAmount(request.getAmount()));
+            amount.setCurrency(total.getCurrency().getCode());
+            amount.setTotal(total.toPlainString());
 
             // Create transaction
             Transaction transaction = new Transaction();
@@ -71,12 +92,13 @@ public class PayPalService implements PaymentServiceInterface {
 
             // Set redirect URLs
             RedirectUrls redirectUrls = new RedirectUrls();
-            redirectUrls.setCancelUrl(cancelUrl);
-            redirectUrls.setReturnUrl(returnUrl);
+            redirectUrls.setCancelUrl(withTenant(cancelUrl));
+            redirectUrls.setReturnUrl(withTenant(returnUrl));
             payment.setRedirectUrls(redirectUrls);
 
             // Create payment on PayPal
-            Payment createdPayment = payment.create(apiContext);
+            PayPalTenantClients.Client client = clients.current();
+            Payment createdPayment = client.getApiClient().createPayment(payment, createRequestId(request), client.getAccessToken());
             log.info("Payment created successfully. Payment ID: {}", createdPayment.getId());
 
             // Extract approval URL
@@ -89,10 +111,12 @@ public class PayPalService implements PaymentServiceInterface {
             );
 
         } catch (PayPalRESTException e) {
-            log.error("PayPal REST API error: {}", e.getMessage(), e);
-            throw new PaymentException("Failed to create PayPal payment: " + e.getMessage(), e);
+            log.warn("PayPal REST API error: {}", e.getMessage());
+            throw providerFailure("Failed to create PayPal payment: ", e);
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Unexpected error creating payment: {}", e.getMessage(), e);
+            log.error("Unexpected error creating payment: {}", e.getMessage());
             throw new PaymentException("Failed to create payment: " + e.getMessage(), e);
         }
     }
@@ -104,13 +128,12 @@ public class PayPalService implements PaymentServiceInterface {
         log.info("Executing PayPal payment. Payment ID: {}, Payer ID: {}", paymentId, payerId);
 
         try {
-            Payment payment = new Payment();
-            payment.setId(paymentId);
-
             PaymentExecution paymentExecute = new PaymentExecution();
             paymentExecute.setPayerId(payerId);
 
-            Payment executedPayment = payment.execute(apiContext, paymentExecute);
+            PayPalTenantClients.Client client = clients.current();
+            Payment executedPayment = client.getApiClient().executePayment(paymentId, paymentExecute,
+                    requestId("execute", paymentId, payerId), client.getAccessToken());
             log.info("Payment executed successfully. State: {}", executedPayment.getState());
 
             if ("approved".equals(executedPayment.getState())) {
@@ -120,10 +143,12 @@ public class PayPalService implements PaymentServiceInterface {
             }
 
         } catch (PayPalRESTException e) {
-            log.error("PayPal REST API error during execution: {}", e.getMessage(), e);
-            throw new PaymentException("Failed to execute PayPal payment: " + e.getMessage(), e);
+            log.warn("PayPal REST API error during execution: {}", e.getMessage());
+            throw providerFailure("Failed to execute PayPal payment: ", e);
+        } catch (PaymentException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Unexpected error executing payment: {}", e.getMessage(), e);
+            log.error("Unexpected error executing payment: {}", e.getMessage());
             throw new PaymentException("Failed to execute payment: " + e.getMessage(), e);
         }
     }
@@ -131,17 +156,93 @@ public class PayPalService implements PaymentServiceInterface {
     /**
      * Gets payment details
      */
-    public Payment getPaymentDetails(String paymentId) {
+    public PaymentDetails getPaymentDetails(String paymentId) {
         log.info("Fetching payment details for payment ID: {}", paymentId);
 
         try {
-            Payment payment = Payment.get(apiContext, paymentId);
+            PayPalTenantClients.Client client = clients.current();
+            Payment payment = client.getApiClient().getPayment(paymentId, client.getAccessToken());
             log.info("Payment details retrieved. State: {}", payment.getState());
-            return payment;
+            return toPaymentDetails(payment);
         } catch (PayPalRESTException e) {
-            log.error("Failed to get payment details: {}", e.getMessage(), e);
-            throw new PaymentException("Failed to get payment details: " + e.getMessage(), e);
+            log.warn("Failed to get payment details: {}", e.getMessage());
+            throw providerFailure("Failed to get payment details: ", e);
+        }
+    }
+
+    /**
+     * Maps the PayPal SDK payment onto the provider-neutral details
+     */
+    private PaymentDetails toPaymentDetails(Payment payment) {
+        PaymentDetails.PaymentDetailsBuilder details = PaymentDetails.builder()
+                .paymentId(payment.getId())
+                .provider(getProviderName())
+                .state(payment.getState())
+                .createTime(parseTime(payment.getCreateTime()))
+                .updateTime(parseTime(payment.getUpdateTime()));
+
+        if (payment.getTransactions() != null && !payment.getTransactions().isEmpty()) {
+            Amount amount = payment.getTransactions().get(0).getAmount();
+            CurrencyUnit currency = amount == null ? null : CurrencyUnit.find(amount.getCurrency());
+            if (currency != null && amount.getTotal() != null) {
+                details.amount(Money.parse(amount.getTotal(), currency));
+            }
+        }
+
+        if (payment.getPayer() != null && payment.getPayer().getPayerInfo() != null) {
+            PayerInfo payerInfo = payment.getPayer().getPayerInfo();
+            details.payerReference(payerInfo.getPayerId() != null ? payerInfo.getPayerId() : payerInfo.getEmail());
+        }
+        return details.build();
+    }
+
+    private Instant parseTime(String time) {
+        if (time == null) {
+            return null;
         }
+        try {
+            return Instant.parse(time);
+        } catch (DateTimeParseException e) {
+            log.warn("Unparseable PayPal timestamp: {}", time);
+            return null;
+        }
+    }
+
+    /**
+     * PayPal's redirect back carries no headers of ours, so the tenant rides along as a query parameter
+     */
+    private String withTenant(String url) {
+        String tenantId = TenantContext.current();
+        if (tenantId == null) {
+            return url;
+        }
+        return UriComponentsBuilder.fromUriString(url)
+                .queryParam(tenantProperties.getRedirectParameter(), tenantId)
+                .toUriString();
+    }
+
+    /**
+     * Same order, amount and tenant give the same id, so PayPal returns the payment it already
+     * created for a retried create instead of a second one; without an order id there is nothing
+     * stable to derive it from and no id is sent
+     */
+    private static String createRequestId(PaymentRequest request) {
+        if (request.getOrderId() == null || request.getOrderId().isBlank()) {
+            return null;
+        }
+        Money total = request.toMoney();
+        return requestId("create", request.getOrderId(), total.toPlainString(), total.getCurrency().getCode());
+    }
+
+    /**
+     * Name-based UUID over the tenant and the given parts, stable across retries and restarts
+     */
+    private static String requestId(String operation, String... parts) {
+        StringBuilder name = new StringBuilder(operation).append('\n').append(TenantContext.current());
+        for (String part : parts) {
+            name.append('\n').append(part);
+        }
+        return UUID.nameUUIDFromBytes(name.toString().getBytes(StandardCharsets.UTF_8)).toString();
     }
 
     /**
@@ -153,14 +254,22 @@ public class PayPalService implements PaymentServiceInterface {
                 return link.getHref();
             }
         }
-        throw new PaymentException("No approval URL found in PayPal response");
+        throw new PaymentException(ErrorCode.PROVIDER_ERROR, "No approval URL found in PayPal response");
     }
 
     /**
-     * Formats amount to 2 decimal places
+     * A 4xx from PayPal is a decline or a bad request, an expected outcome; anything else is a provider fault
+     * 401 / 403 mean our credentials or account are wrong, which no payer can fix, so they are faults too
      */
-    private String formatAmount(BigDecimal amount) {
-        return amount.setScale(2, RoundingMode.HALF_UP).toString();
+    private static PaymentException providerFailure(String message, PayPalRESTException e) {
+        int status = e.getResponsecode();
+        if (status == 401 || status == 403) {
+            log.error("PayPal rejected our credentials ({}) for tenant {}", status, TenantContext.current());
+        }
+        boolean declined = status >= 400 && status < 500 && status != 401 && status != 403
+                && status != 408 && status != 429;
+        return new PaymentException(declined ? ErrorCode.PROVIDER_DECLINED : ErrorCode.PROVIDER_ERROR,
+                message + e.getMessage(), e);
     }
 }
 
@@ -0,0 +1,219 @@
+package com.apm.poc.service;
+
+import com.apm.poc.config.PaymentRoutingProperties;
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Chooses a payment provider per request when several are active in the same JVM
+ *
+ * Creates go to the provider named in the request, or to the providers allowed by the first
+ * matching routing rule, ranked by observed latency and error rate; a failed create fails over
+ * to the next candidate. A create that timed out or lost its response may still have created
+ * the payment at the provider, but the buyer was never sent to approve it, so it cannot be
+ * executed and lapses at the provider unapproved; only the failover's payment reaches the
+ * buyer. Execute and details calls must reach the provider that issued the payment, found
+ * through the payment index or the payment id format, and are never failed over.
+ */
+@Slf4j
+public class PaymentRouter implements AsyncPaymentServiceInterface {
+
+    private final Map<String, Route> routes;
+    private final PaymentRoutingProperties properties;
+    private final PaymentIndex paymentIndex;
+
+    public PaymentRouter(List<ProviderBinding> providers, PaymentRoutingProperties properties,
+                         PaymentIndex paymentIndex, MeterRegistry meterRegistry) {
+        if (providers.isEmpty()) {
+            throw new IllegalStateException("No payment provider is active");
+        }
+        Map<String, Route> byName = new LinkedHashMap<>();
+        for (ProviderBinding binding : providers) {
+            String name = binding.getProvider().getProviderName();
+            Route route = new Route(binding, new ProviderStats(properties.getEwmaAlpha()));
+            if (byName.putIfAbsent(name, route) != null) {
+                throw new IllegalStateException("More than one active payment provider named " + name);
+            }
+            Gauge.builder("payment.router.latency", route.stats, ProviderStats::latencyMillis)
+                    .description("Moving average of provider call latency")
+                    .baseUnit("milliseconds")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+            Gauge.builder("payment.router.error.rate", route.stats, ProviderStats::errorRate)
+                    .description("Moving average of provider call failures")
+                    .tag("provider", name)
+                    .register(meterRegistry);
+        }
+        this.routes = Collections.unmodifiableMap(byName);
+        this.properties = properties;
+        this.paymentIndex = paymentIndex;
+        log.info("Payment router serving providers: {}", routes.keySet());
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> createPayment(PaymentRequest request) {
+        List<Route> candidates = candidatesFor(request);
+        return createWithFailover(request, candidates, 0);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId) {
+        Route route = ownerOf(paymentId);
+        return timed(route, () -> route.service().executePayment(paymentId, payerId));
+    }
+
+    @Override
+    public CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId) {
+        Route route = ownerOf(paymentId);
+        return timed(route, () -> route.service().getPaymentDetails(paymentId));
+    }
+
+    public Set<String> getProviderNames() {
+        return routes.keySet();
+    }
+
+    private CompletableFuture<PaymentResponse> createWithFailover(PaymentRequest request, List<Route> candidates, int attempt) {
+        Route route = candidates.get(attempt);
+        return timed(route, () -> route.service().createPayment(request))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    boolean canFailOver = properties.isFailover() && attempt + 1 < candidates.size();
+                    if (!canFailOver) {
+                        return CompletableFuture.<PaymentResponse>failedFuture(error);
+                    }
+                    log.warn("Provider {} failed to create payment ({}), failing over to {}", route.name(),
+                            unwrap(error).getMessage(), candidates.get(attempt + 1).name());
+                    return createWithFailover(request, candidates, attempt + 1);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private List<Route> candidatesFor(PaymentRequest request) {
+        if (request.getProvider() != null && !request.getProvider().isBlank()) {
+            Route route = routes.get(request.getProvider());
+            if (route == null) {
+                throw new PaymentException(ErrorCode.UNKNOWN_PROVIDER, "Unknown payment provider: " + request.getProvider()
+                        + ". Available providers: " + routes.keySet());
+            }
+            return Collections.singletonList(route);
+        }
+
+        List<Route> candidates = new ArrayList<>();
+        PaymentRoutingProperties.Rule rule = matchingRule(request);
+        if (rule != null) {
+            for (String name : rule.getProviders()) {
+                Route route = routes.get(name);
+                if (route != null) {
+                    candidates.add(route);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(routes.values());
+        }
+        // Stable sort keeps the configured order for providers that score the same
+        candidates.sort(Comparator.comparingDouble(route -> route.stats.score()));
+        return candidates;
+    }
+
+    private PaymentRoutingProperties.Rule matchingRule(PaymentRequest request) {
+        for (PaymentRoutingProperties.Rule rule : properties.getRules()) {
+            if (rule.getCurrency() == null || rule.getCurrency().isBlank()
+                    || rule.getCurrency().equalsIgnoreCase(request.getCurrency())) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private Route ownerOf(String paymentId) {
+        String provider = paymentIndex.find(paymentId).map(PaymentRecord::getProvider).orElse(null);
+        if (provider != null && routes.containsKey(provider)) {
+            return routes.get(provider);
+        }
+        for (Route route : routes.values()) {
+            if (route.binding.getProvider().supportsPaymentId(paymentId)) {
+                return route;
+            }
+        }
+        if (routes.size() == 1) {
+            return routes.values().iterator().next();
+        }
+        throw new PaymentException(ErrorCode.INVALID_PAYMENT_ID, "No payment provider recognizes payment ID: " + paymentId);
+    }
+
+    private <T> CompletableFuture<T> timed(Route route, Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((value, error) -> route.stats.record(System.nanoTime() - start, error != null));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * A provider together with the async stack that calls it
+     */
+    public static final class ProviderBinding {
+        private final PaymentServiceInterface provider;
+        private final AsyncPaymentServiceInterface service;
+
+        public ProviderBinding(PaymentServiceInterface provider, AsyncPaymentServiceInterface service) {
+            this.provider = provider;
+            this.service = service;
+        }
+
+        public PaymentServiceInterface getProvider() {
+            return provider;
+        }
+
+        public AsyncPaymentServiceInterface getService() {
+            return service;
+        }
+    }
+
+    private static final class Route {
+        private final ProviderBinding binding;
+        private final ProviderStats stats;
+
+        private Route(ProviderBinding binding, ProviderStats stats) {
+            this.binding = binding;
+            this.stats = stats;
+        }
+
+        private String name() {
+            return binding.getProvider().getProviderName();
+        }
+
+        private AsyncPaymentServiceInterface service() {
+            return binding.getService();
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.apm.poc.service;
 
+import com.apm.poc.dto.PaymentDetails;
 import com.apm.poc.dto.PaymentRequest;
 import com.apm.poc.dto.PaymentResponse;
-import com.paypal.api.payments.Payment;
 
 /**
  * Generic service interface for payment operations across different payment providers
@@ -10,6 +10,17 @@ import com.paypal.api.payments.Payment;
  */
 public interface PaymentServiceInterface {
 
+    /**
+     * Short, stable name of the payment provider (e.g. "paypal", "applepay")
+     */
+    String getProviderName();
+
+    /**
+     * Whether a payment id was issued by this provider, used to route execute and
+     * details calls for payments the local index doesn't know about
+     */
+    boolean supportsPaymentId(String paymentId);
+
     /**
      * Creates a payment and returns the approval/authorization URL
      */
@@ -21,10 +32,8 @@ public interface PaymentServiceInterface {
     PaymentResponse executePayment(String paymentId, String payerId);
 
     /**
-     * Gets payment details
-     * Note: Return type should be made generic in future refactoring
-     * to support different payment provider response types
+     * Gets payment details in the provider-neutral PaymentDetails form
      */
-    Payment getPaymentDetails(String paymentId);
+    PaymentDetails getPaymentDetails(String paymentId);
 }
 
@@ -0,0 +1,190 @@
+package com.apm.poc.service;
+
+import com.apm.poc.config.StatusLookupProperties;
+import com.apm.poc.dto.ErrorResponse;
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentStatusLine;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.ErrorLogger;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentRecord;
+import com.apm.poc.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Looks up the status of many payments with bounded parallelism, handing out each result as it completes
+ *
+ * Payments this instance has seen settle (approved, failed, cancelled) are answered from the
+ * PaymentIndex without a provider call, but only to the tenant that created them. The rest go
+ * through the regular details stack, so the details cache and single-flight loading apply before
+ * the provider is asked, each after taking a permit that paces the lookup to the client's rate. At most
+ * maxConcurrency lookups are in flight, and a new one only starts once a finished line has been
+ * handed to the sink, so a slow reader slows the lookups down instead of piling up results.
+ */
+@Service
+@Slf4j
+public class PaymentStatusLookupService {
+
+    private static final String SOURCE_LOCAL = "local";
+    private static final String SOURCE_PROVIDER = "provider";
+
+    private final AsyncPaymentServiceInterface paymentService;
+    private final PaymentIndex paymentIndex;
+    private final StatusLookupProperties properties;
+    private final ErrorLogger errorLogger;
+    private final Counter localLookups;
+    private final Counter providerLookups;
+
+    public PaymentStatusLookupService(AsyncPaymentServiceInterface paymentService, PaymentIndex paymentIndex,
+                                      StatusLookupProperties properties, ErrorLogger errorLogger,
+                                      MeterRegistry meterRegistry) {
+        this.paymentService = paymentService;
+        this.paymentIndex = paymentIndex;
+        this.properties = properties;
+        this.errorLogger = errorLogger;
+        this.localLookups = Counter.builder("payment.status.lookups")
+                .description("Payment ids resolved by bulk status lookups")
+                .tag("source", SOURCE_LOCAL)
+                .register(meterRegistry);
+        this.providerLookups = Counter.builder("payment.status.lookups")
+                .description("Payment ids resolved by bulk status lookups")
+                .tag("source", SOURCE_PROVIDER)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prepares a lookup of the given ids for the current tenant; nothing is looked up until it is written
+     */
+    public Lookup lookup(List<String> paymentIds, ProviderPermits permits) {
+        return new Lookup(paymentIds, TenantContext.current(), permits);
+    }
+
+    /**
+     * Taken on the writing thread before each id that goes to the provider; may block to pace the lookup
+     */
+    public interface ProviderPermits {
+
+        void acquire() throws InterruptedException;
+    }
+
+    /**
+     * Receives the lines of a lookup, always on the thread that runs Lookup.writeTo
+     */
+    public interface LineSink {
+
+        void write(PaymentStatusLine line) throws IOException;
+
+        /**
+         * Called whenever no further line is ready yet, before waiting for one
+         */
+        void flush() throws IOException;
+    }
+
+    public final class Lookup {
+        private final List<String> paymentIds;
+        private final String tenantId;
+        private final ProviderPermits permits;
+
+        private Lookup(List<String> paymentIds, String tenantId, ProviderPermits permits) {
+            this.paymentIds = paymentIds;
+            this.tenantId = tenantId;
+            this.permits = permits;
+        }
+
+        /**
+         * Runs the lookups and writes every line, returning once all are written
+         * A failing sink (client gone) stops further lookups; those in flight finish unobserved
+         */
+        public void writeTo(LineSink sink) throws IOException, InterruptedException {
+            int total = paymentIds.size();
+            int concurrency = Math.max(1, Math.min(properties.getMaxConcurrency(), total));
+            // Holds at most the lookups in flight, so completing ones never block
+            BlockingQueue<PaymentStatusLine> ready = new ArrayBlockingQueue<>(concurrency);
+            long start = System.nanoTime();
+
+            int started = 0;
+            for (int written = 0; written < total; written++) {
+                while (started < total && started - written < concurrency) {
+                    start(started, paymentIds.get(started), ready);
+                    started++;
+                }
+                PaymentStatusLine line = ready.poll();
+                if (line == null) {
+                    sink.flush();
+                    line = ready.take();
+                }
+                sink.write(line);
+            }
+            log.info("Status lookup of {} payments finished in {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        private void start(int index, String paymentId, BlockingQueue<PaymentStatusLine> ready)
+                throws InterruptedException {
+            PaymentRecord record = paymentIndex.find(paymentId).orElse(null);
+            // Another tenant's payment goes to the provider, which refuses it with this tenant's credentials
+            if (record != null && Objects.equals(record.getTenant(), tenantId)
+                    && CachingAsyncPaymentService.isTerminal(record.getState())) {
+                localLookups.increment();
+                ready.add(line(index, paymentId, SOURCE_LOCAL).details(toDetails(record)).build());
+                return;
+            }
+
+            permits.acquire();
+            providerLookups.increment();
+            CompletableFuture<PaymentDetails> call;
+            try {
+                call = TenantContext.callWith(tenantId, () -> paymentService.getPaymentDetails(paymentId));
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            call.whenComplete((details, error) -> {
+                PaymentStatusLine.PaymentStatusLineBuilder line = line(index, paymentId, SOURCE_PROVIDER);
+                ready.add(error == null ? line.details(details).build() : line.error(describe(error)).build());
+            });
+        }
+    }
+
+    private static PaymentStatusLine.PaymentStatusLineBuilder line(int index, String paymentId, String source) {
+        return PaymentStatusLine.builder()
+                .index(index)
+                .paymentId(paymentId)
+                .source(source);
+    }
+
+    private static PaymentDetails toDetails(PaymentRecord record) {
+        return PaymentDetails.builder()
+                .paymentId(record.getPaymentId())
+                .provider(record.getProvider())
+                .state(record.getState())
+                .amount(record.getAmount())
+                .payerReference(record.getPayerReference())
+                .createTime(Instant.ofEpochMilli(record.getCreatedAt()))
+                .updateTime(Instant.ofEpochMilli(record.getUpdatedAt()))
+                .build();
+    }
+
+    private ErrorResponse describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof PaymentException) {
+            PaymentException failure = (PaymentException) cause;
+            errorLogger.record(failure.getCode(), failure);
+            return new ErrorResponse(failure.getCode().getTitle(), failure.getCode().name(), failure.getMessage());
+        }
+        errorLogger.record(ErrorCode.INTERNAL_ERROR, cause);
+        return new ErrorResponse(ErrorCode.INTERNAL_ERROR.getTitle(), ErrorCode.INTERNAL_ERROR.name(),
+                "An unexpected error occurred");
+    }
+}
@@ -0,0 +1,58 @@
+package com.apm.poc.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Handed from CircuitBreakingAsyncPaymentService to the ExecutorAsyncPaymentService below it
+ *
+ * Bound to the calling thread only while the call is submitted. The executor picks it up with
+ * the task, reports when the task actually starts running, so time spent queued for a provider
+ * thread is not counted against the provider, and runs it with the given HTTP read timeout.
+ */
+final class ProviderCall {
+
+    private static final ThreadLocal<ProviderCall> SUBMITTING = new ThreadLocal<>();
+
+    private final Duration readTimeout;
+    private final CompletableFuture<Long> started = new CompletableFuture<>();
+
+    /**
+     * @param readTimeout caps the HTTP read timeout of the call, null for the transport's own
+     */
+    ProviderCall(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    static <T> T submitWith(ProviderCall call, Supplier<T> submit) {
+        SUBMITTING.set(call);
+        try {
+            return submit.get();
+        } finally {
+            SUBMITTING.remove();
+        }
+    }
+
+    /**
+     * The call being submitted on this thread, null outside a circuit breaker
+     */
+    static ProviderCall current() {
+        return SUBMITTING.get();
+    }
+
+    Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    void markStarted() {
+        started.complete(System.nanoTime());
+    }
+
+    /**
+     * Completes with System.nanoTime() when a provider thread starts the call; never if it is rejected
+     */
+    CompletableFuture<Long> started() {
+        return started;
+    }
+}
@@ -0,0 +1,58 @@
+package com.apm.poc.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving averages of a provider's latency and error rate
+ * Lock-free: each average is a double stored in an AtomicLong and updated by CAS
+ */
+public class ProviderStats {
+
+    private final double alpha;
+    private final AtomicLong latencyMillisBits = new AtomicLong(Double.doubleToLongBits(-1));
+    private final AtomicLong errorRateBits = new AtomicLong(Double.doubleToLongBits(0));
+
+    public ProviderStats(double alpha) {
+        this.alpha = alpha;
+    }
+
+    public void record(long latencyNanos, boolean failed) {
+        double latencyMillis = latencyNanos / 1_000_000.0;
+        update(latencyMillisBits, latencyMillis, true);
+        update(errorRateBits, failed ? 1.0 : 0.0, false);
+    }
+
+    /**
+     * Average latency in milliseconds, or -1 before the first sample
+     */
+    public double latencyMillis() {
+        return Double.longBitsToDouble(latencyMillisBits.get());
+    }
+
+    public double errorRate() {
+        return Double.longBitsToDouble(errorRateBits.get());
+    }
+
+    /**
+     * Lower is better. Providers without samples score 0 so they get tried;
+     * errors inflate the expected latency since a failed call usually costs a retry
+     */
+    public double score() {
+        double latency = latencyMillis();
+        if (latency < 0) {
+            return 0;
+        }
+        return latency * (1 + 10 * errorRate());
+    }
+
+    private void update(AtomicLong bits, double sample, boolean seedWithFirstSample) {
+        while (true) {
+            long currentBits = bits.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double next = seedWithFirstSample && current < 0 ? sample : current + alpha * (sample - current);
+            if (bits.compareAndSet(currentBits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
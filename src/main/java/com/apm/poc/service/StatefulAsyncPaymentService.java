@@ -0,0 +1,193 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventPublisher;
+import com.apm.poc.event.PaymentEventType;
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import com.apm.poc.exception.ProviderTimeoutException;
+import com.apm.poc.exception.ProviderUnavailableException;
+import com.apm.poc.state.PaymentState;
+import com.apm.poc.state.PaymentStateStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Executes each payment at most once at a time, using the PaymentStateStore
+ *
+ * The caller that moves a payment from created to executing calls the provider; duplicates
+ * arriving meanwhile (browser refreshes, repeated redirects) get the same in-flight result,
+ * and later ones get the final result without another provider call. Unknown ids and cancelled
+ * payments are refused.
+ *
+ * An execute error other than a local rejection does not say whether the provider executed the
+ * payment, so the payment is reconciled from the provider's details instead of being retried
+ * blindly: approved or failed there settles it and publishes the event the error withheld (for
+ * declines too, which EventPublishingAsyncPaymentService leaves to this layer), not executed
+ * there makes it retryable without an event. If the details cannot be fetched either, it stays
+ * reconciling and the next execute reconciles again before calling the provider.
+ *
+ * payment.execute.deduplicated{state}: executes answered without calling the provider
+ */
+public class StatefulAsyncPaymentService implements AsyncPaymentServiceInterface {
+
+    private final AsyncPaymentServiceInterface delegate;
+    private final PaymentStateStore stateStore;
+    private final PaymentEventPublisher publisher;
+    private final Map<PaymentState, Counter> deduplicated = new EnumMap<>(PaymentState.class);
+
+    public StatefulAsyncPaymentService(AsyncPaymentServiceInterface delegate, PaymentStateStore stateStore,
+                                       PaymentEventPublisher publisher, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.stateStore = stateStore;
+        this.publisher = publisher;
+        for (PaymentState state : PaymentState.values()) {
+            if (state != PaymentState.CREATED && state != PaymentState.RECONCILING) {
+                deduplicated.put(state, Counter.builder("payment.execute.deduplicated")
+                        .description("Execute calls answered from payment state instead of the provider")
+                        .tag("state", state.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> createPayment(PaymentRequest request) {
+        return delegate.createPayment(request);
+    }
+
+    @Override
+    public CompletableFuture<PaymentResponse> executePayment(String paymentId, String payerId) {
+        while (true) {
+            PaymentStateStore.Entry current = stateStore.current(paymentId);
+            if (current == null) {
+                return CompletableFuture.failedFuture(new PaymentException(ErrorCode.PAYMENT_NOT_FOUND,
+                        "Payment " + paymentId + " not found"));
+            }
+            PaymentState state = current.getState();
+            if (state == PaymentState.CANCELLED) {
+                deduplicated.get(state).increment();
+                return CompletableFuture.failedFuture(new PaymentException(ErrorCode.PAYMENT_CANCELLED,
+                        "Payment " + paymentId + " was cancelled"));
+            }
+            if (state != PaymentState.CREATED && state != PaymentState.RECONCILING) {
+                deduplicated.get(state).increment();
+                return current.getResult();
+            }
+
+            CompletableFuture<PaymentResponse> result = new CompletableFuture<>();
+            PaymentStateStore.Entry executing = PaymentStateStore.Entry.executing(result);
+            if (!stateStore.compareAndSet(paymentId, current, executing)) {
+                continue;
+            }
+            if (state == PaymentState.RECONCILING) {
+                reconcile(paymentId, payerId, executing, result, null);
+            } else {
+                execute(paymentId, payerId, executing, result);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public CompletableFuture<PaymentDetails> getPaymentDetails(String paymentId) {
+        return delegate.getPaymentDetails(paymentId);
+    }
+
+    @Override
+    public void invalidate(String paymentId) {
+        delegate.invalidate(paymentId);
+    }
+
+    private void execute(String paymentId, String payerId, PaymentStateStore.Entry executing,
+                         CompletableFuture<PaymentResponse> result) {
+        CompletableFuture<PaymentResponse> call;
+        try {
+            call = delegate.executePayment(paymentId, payerId);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        // State is settled before the result completes, so nobody sees a finished call still executing
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                PaymentState settled = "approved".equals(response.getStatus()) ? PaymentState.APPROVED : PaymentState.FAILED;
+                stateStore.compareAndSet(paymentId, executing, PaymentStateStore.Entry.settled(settled, response));
+                result.complete(response);
+                return;
+            }
+            if (isLocalRejection(unwrap(error))) {
+                stateStore.compareAndSet(paymentId, executing, PaymentStateStore.Entry.created());
+                result.completeExceptionally(error);
+                return;
+            }
+            reconcile(paymentId, payerId, executing, result, error);
+        });
+    }
+
+    /**
+     * Settles an execution whose outcome is unknown from the provider's details
+     *
+     * @param error the execute error, null when an earlier attempt left the payment reconciling
+     */
+    private void reconcile(String paymentId, String payerId, PaymentStateStore.Entry executing,
+                           CompletableFuture<PaymentResponse> result, Throwable error) {
+        CompletableFuture<PaymentDetails> lookup;
+        try {
+            lookup = delegate.getPaymentDetails(paymentId);
+        } catch (RuntimeException e) {
+            lookup = CompletableFuture.failedFuture(e);
+        }
+        lookup.whenComplete((details, lookupError) -> {
+            String state = lookupError == null && details != null ? details.getState() : null;
+            if ("approved".equals(state)) {
+                PaymentResponse response = PaymentResponse.approved(paymentId, null);
+                publish(PaymentEventType.EXECUTED, details);
+                stateStore.compareAndSet(paymentId, executing, PaymentStateStore.Entry.settled(PaymentState.APPROVED, response));
+                result.complete(response);
+            } else if ("failed".equals(state)) {
+                PaymentResponse response = PaymentResponse.failed("Payment not approved. State: " + state);
+                publish(PaymentEventType.FAILED, details);
+                stateStore.compareAndSet(paymentId, executing, PaymentStateStore.Entry.settled(PaymentState.FAILED, response));
+                result.complete(response);
+            } else if (state != null && error == null) {
+                // Not executed by the earlier attempt, so executing now cannot charge twice
+                execute(paymentId, payerId, executing, result);
+            } else if (state != null) {
+                stateStore.compareAndSet(paymentId, executing, PaymentStateStore.Entry.created());
+                result.completeExceptionally(error);
+            } else {
+                stateStore.compareAndSet(paymentId, executing, PaymentStateStore.Entry.reconciling());
+                result.completeExceptionally(error != null ? error : lookupError);
+            }
+        });
+    }
+
+    private void publish(PaymentEventType type, PaymentDetails details) {
+        publisher.publish(PaymentEvent.builder()
+                .type(type)
+                .paymentId(details.getPaymentId())
+                .provider(details.getProvider())
+                .state(details.getState())
+                .timestamp(System.currentTimeMillis())
+                .build());
+    }
+
+    /**
+     * Refused before reaching the provider (open circuit, saturated executor), so nothing happened there
+     */
+    private static boolean isLocalRejection(Throwable error) {
+        return error instanceof ProviderUnavailableException && !(error instanceof ProviderTimeoutException);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
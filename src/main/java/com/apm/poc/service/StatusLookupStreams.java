@@ -0,0 +1,119 @@
+package com.apm.poc.service;
+
+import com.apm.poc.config.StatusLookupProperties;
+import com.apm.poc.exception.AdmissionRejectedException;
+import com.apm.poc.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads and admission for streamed status lookups
+ *
+ * A stream holds its thread while it waits for lookups and for the client's permits, for up to
+ * payment.status-lookup.timeout. Streams therefore run on their own bounded executor instead of
+ * the shared MVC one, and are admitted up front: at most maxStreams at once and
+ * maxStreamsPerClient per client, beyond which the request gets 429 instead of waiting in a queue.
+ *
+ * payment.status.streams: streams open
+ */
+@Component
+public class StatusLookupStreams {
+
+    private final StatusLookupProperties properties;
+    private final ThreadPoolTaskExecutor executor;
+    private final Semaphore streams;
+    private final ConcurrentHashMap<String, AtomicInteger> openByClient = new ConcurrentHashMap<>();
+
+    public StatusLookupStreams(StatusLookupProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.streams = new Semaphore(properties.getMaxStreams());
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getMaxStreams());
+        executor.setMaxPoolSize(properties.getMaxStreams());
+        // Room for streams admitted while a finishing thread has not yet gone back to the pool
+        executor.setQueueCapacity(properties.getMaxStreams());
+        executor.setThreadNamePrefix("status-lookup-");
+        executor.setDaemon(true);
+        executor.initialize();
+
+        Gauge.builder("payment.status.streams", streams, permits -> properties.getMaxStreams() - permits.availablePermits())
+                .description("Streamed status lookups in progress")
+                .register(meterRegistry);
+    }
+
+    public AsyncTaskExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Admits a stream for the client, to be closed once it has been written or abandoned
+     * The client is its API key, else its merchant header, else its address
+     *
+     * @throws AdmissionRejectedException RATE_LIMITED when the client already has maxStreamsPerClient
+     *                                    streams open, OVERLOADED when maxStreams are open overall
+     */
+    public Slot open(String apiKey, String merchantId, String address) {
+        String client = hasText(apiKey) ? "api_key:" + apiKey
+                : hasText(merchantId) ? "merchant:" + merchantId
+                : "address:" + address;
+        AtomicInteger open = openByClient.computeIfAbsent(client, key -> new AtomicInteger());
+        if (open.incrementAndGet() > properties.getMaxStreamsPerClient()) {
+            release(client, open);
+            throw new AdmissionRejectedException(ErrorCode.RATE_LIMITED,
+                    "Too many status lookups in progress for this client, please wait for one to finish",
+                    properties.getBusyRetryAfter());
+        }
+        if (!streams.tryAcquire()) {
+            release(client, open);
+            throw new AdmissionRejectedException(ErrorCode.OVERLOADED,
+                    "Too many status lookups in progress, please retry later", properties.getBusyRetryAfter());
+        }
+        return new Slot(client, open);
+    }
+
+    private void release(String client, AtomicInteger open) {
+        if (open.decrementAndGet() <= 0) {
+            openByClient.remove(client, open);
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * An admitted stream; closing it more than once is harmless
+     */
+    public final class Slot implements AutoCloseable {
+        private final String client;
+        private final AtomicInteger open;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Slot(String client, AtomicInteger open) {
+            this.client = client;
+            this.open = open;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                streams.release();
+                release(client, open);
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.apm.poc.standin;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Runs the PayPal REST stand-in in-process; PayPalConfig gives its base URL to PayPalApiClient,
+ * so every PayPal call goes over HttpTransport to this server instead of PayPal
+ */
+@Configuration
+@Profile("paypal-standin")
+@EnableConfigurationProperties(PayPalStandInProperties.class)
+public class PayPalStandInConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public PayPalStandInServer payPalStandInServer(PayPalStandInProperties properties) {
+        return new PayPalStandInServer(properties);
+    }
+}
@@ -0,0 +1,48 @@
+package com.apm.poc.standin;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Behaviour of the local PayPal REST stand-in (profile paypal-standin)
+ */
+@ConfigurationProperties(prefix = "paypal.standin")
+@Data
+public class PayPalStandInProperties {
+    // 0 picks a free port; 8089 is left to the outbox HTTP sink
+    private int port = 8099;
+    // Concurrent requests the stand-in serves; latency is simulated by sleeping in these threads
+    private int threads = 64;
+    // Lifetime of issued access tokens
+    private Duration tokenTtl = Duration.ofHours(9);
+    // Requests per second across all endpoints before answering 429, 0 for no limit
+    private int maxRequestsPerSecond = 0;
+    private Endpoint token = new Endpoint(Duration.ofMillis(120), Duration.ofMillis(600));
+    private Endpoint create = new Endpoint(Duration.ofMillis(350), Duration.ofMillis(1500));
+    private Endpoint execute = new Endpoint(Duration.ofMillis(500), Duration.ofMillis(2000));
+    private Endpoint get = new Endpoint(Duration.ofMillis(150), Duration.ofMillis(700));
+
+    /**
+     * Latency is log-normal, fitted to the given median and p99
+     */
+    @Data
+    public static class Endpoint {
+        private Duration medianLatency;
+        private Duration p99Latency;
+        // Share of requests answered with 500 INTERNAL_SERVICE_ERROR
+        private double errorRate = 0;
+        // Share of requests answered with 429 RATE_LIMIT_REACHED
+        private double rateLimitRate = 0;
+
+        public Endpoint() {
+            this(Duration.ofMillis(100), Duration.ofMillis(500));
+        }
+
+        public Endpoint(Duration medianLatency, Duration p99Latency) {
+            this.medianLatency = medianLatency;
+            this.p99Latency = p99Latency;
+        }
+    }
+}
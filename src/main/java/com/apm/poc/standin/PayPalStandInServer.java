@@ -0,0 +1,339 @@
+package com.apm.poc.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the PayPal REST API used by the real PayPalService through PayPalApiClient
+ *
+ * Serves the endpoints PayPalApiClient calls:
+ *   POST /v1/oauth2/token
+ *   POST /v1/payments/payment
+ *   POST /v1/payments/payment/{id}/execute
+ *   GET  /v1/payments/payment/{id}
+ *
+ * Each endpoint sleeps for a log-normal latency sample and can answer 500 or 429 at a
+ * configured rate, so the production HTTP and JSON path can be load-tested offline.
+ * Created payments count as approved by the buyer, so they can be executed straight away.
+ */
+@Slf4j
+public class PayPalStandInServer {
+
+    private static final String TOKEN_PATH = "/v1/oauth2/token";
+    private static final String PAYMENTS_PATH = "/v1/payments/payment";
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double Z_99 = 2.326;
+    private static final long MAX_LATENCY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Oldest payments are forgotten beyond this so long stress runs don't exhaust the heap
+    private static final int MAX_STORED_PAYMENTS = 100_000;
+    private static final char[] ID_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ0123456789".toCharArray();
+
+    private final PayPalStandInProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ObjectNode> payments = new ConcurrentHashMap<>();
+    private final Queue<String> paymentOrder = new ConcurrentLinkedQueue<>();
+
+    // Fixed one-second window for max-requests-per-second
+    private final AtomicLong rateWindow = new AtomicLong();
+    private final AtomicInteger rateWindowCount = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public PayPalStandInServer(PayPalStandInProperties properties) {
+        this.properties = properties;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", properties.getPort()), 1024);
+        server.createContext(TOKEN_PATH, this::handleToken);
+        server.createContext(PAYMENTS_PATH, this::handlePayments);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "paypal-standin-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        log.info("PayPal stand-in listening on {}", getBaseUrl());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "METHOD_NOT_SUPPORTED", "The server does not implement the requested HTTP method.");
+                return;
+            }
+            if (!simulate(exchange, properties.getToken())) {
+                return;
+            }
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Basic ")) {
+                ObjectNode error = objectMapper.createObjectNode()
+                        .put("error", "invalid_client")
+                        .put("error_description", "Client Authentication failed");
+                send(exchange, 401, error);
+                return;
+            }
+            ObjectNode token = objectMapper.createObjectNode()
+                    .put("scope", "https://uri.paypal.com/services/payments/payment")
+                    .put("access_token", "A21AA" + randomId(60))
+                    .put("token_type", "Bearer")
+                    .put("app_id", "APP-STANDIN")
+                    .put("expires_in", properties.getTokenTtl().getSeconds())
+                    .put("nonce", Instant.now().truncatedTo(ChronoUnit.SECONDS) + randomId(16));
+            send(exchange, 200, token);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handlePayments(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath().substring(PAYMENTS_PATH.length());
+            String method = exchange.getRequestMethod();
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Bearer ")) {
+                ObjectNode error = objectMapper.createObjectNode()
+                        .put("error", "invalid_token")
+                        .put("error_description", "Token signature verification failed");
+                send(exchange, 401, error);
+                return;
+            }
+
+            if ((path.isEmpty() || path.equals("/")) && "POST".equals(method)) {
+                if (simulate(exchange, properties.getCreate())) {
+                    createPayment(exchange);
+                }
+            } else if (path.endsWith("/execute") && "POST".equals(method)) {
+                if (simulate(exchange, properties.getExecute())) {
+                    executePayment(exchange, path.substring(1, path.length() - "/execute".length()));
+                }
+            } else if (path.length() > 1 && path.indexOf('/', 1) < 0 && "GET".equals(method)) {
+                if (simulate(exchange, properties.getGet())) {
+                    getPayment(exchange, path.substring(1));
+                }
+            } else {
+                sendError(exchange, 404, "NOT_FOUND", "The requested resource was not found.");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void createPayment(HttpExchange exchange) throws IOException {
+        JsonNode request = readBody(exchange);
+        if (request == null || !request.hasNonNull("intent") || !request.path("transactions").isArray()
+                || request.path("transactions").size() == 0) {
+            sendError(exchange, 400, "VALIDATION_ERROR", "Invalid request - see details.");
+            return;
+        }
+
+        String id = "PAYID-" + randomId(24);
+        String now = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+        ObjectNode payment = objectMapper.createObjectNode();
+        payment.put("id", id);
+        payment.put("intent", request.get("intent").asText());
+        payment.put("state", "created");
+        payment.put("cart", randomId(17));
+        payment.set("payer", request.path("payer").isObject() ? request.get("payer").deepCopy() : objectMapper.createObjectNode());
+        payment.set("transactions", request.get("transactions").deepCopy());
+        if (request.has("redirect_urls")) {
+            payment.set("redirect_urls", request.get("redirect_urls").deepCopy());
+        }
+        payment.put("create_time", now);
+        ArrayNode links = payment.putArray("links");
+        addLink(links, getBaseUrl() + "v1/payments/payment/" + id, "self", "GET");
+        addLink(links, getBaseUrl() + "checkoutnow?token=EC-" + randomId(17), "approval_url", "REDIRECT");
+        addLink(links, getBaseUrl() + "v1/payments/payment/" + id + "/execute", "execute", "POST");
+
+        payments.put(id, payment);
+        paymentOrder.add(id);
+        while (payments.size() > MAX_STORED_PAYMENTS) {
+            String oldest = paymentOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            payments.remove(oldest);
+        }
+
+        String body;
+        synchronized (payment) {
+            body = objectMapper.writeValueAsString(payment);
+        }
+        send(exchange, 201, body);
+    }
+
+    private void executePayment(HttpExchange exchange, String paymentId) throws IOException {
+        JsonNode request = readBody(exchange);
+        ObjectNode payment = payments.get(paymentId);
+        if (payment == null) {
+            sendError(exchange, 404, "INVALID_RESOURCE_ID", "Requested resource ID was not found.");
+            return;
+        }
+        if (request == null || !request.hasNonNull("payer_id")) {
+            sendError(exchange, 400, "VALIDATION_ERROR", "Invalid request - see details.");
+            return;
+        }
+
+        String body = null;
+        synchronized (payment) {
+            if ("created".equals(payment.path("state").asText())) {
+                payment.put("state", "approved");
+                payment.put("update_time", Instant.now().truncatedTo(ChronoUnit.SECONDS).toString());
+                ObjectNode payer = (ObjectNode) payment.get("payer");
+                payer.put("status", "VERIFIED");
+                ObjectNode payerInfo = payer.has("payer_info") ? (ObjectNode) payer.get("payer_info") : payer.putObject("payer_info");
+                payerInfo.put("payer_id", request.get("payer_id").asText());
+                body = objectMapper.writeValueAsString(payment);
+            }
+        }
+        if (body == null) {
+            sendError(exchange, 400, "PAYMENT_ALREADY_DONE", "Payment has been done already for this cart.");
+            return;
+        }
+        send(exchange, 200, body);
+    }
+
+    private void getPayment(HttpExchange exchange, String paymentId) throws IOException {
+        ObjectNode payment = payments.get(paymentId);
+        if (payment == null) {
+            sendError(exchange, 404, "INVALID_RESOURCE_ID", "Requested resource ID was not found.");
+            return;
+        }
+        String body;
+        synchronized (payment) {
+            body = objectMapper.writeValueAsString(payment);
+        }
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Applies throttling, latency and error injection; returns false if a response was already sent
+     */
+    private boolean simulate(HttpExchange exchange, PayPalStandInProperties.Endpoint endpoint) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Throttled requests are rejected up front, as PayPal's edge does
+        if (overRateLimit() || random.nextDouble() < endpoint.getRateLimitRate()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 429, "RATE_LIMIT_REACHED", "Too many requests. Blocked due to rate limiting.");
+            return false;
+        }
+
+        try {
+            Thread.sleep(sampleLatencyMillis(endpoint, random));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (random.nextDouble() < endpoint.getErrorRate()) {
+            sendError(exchange, 500, "INTERNAL_SERVICE_ERROR", "An internal service error has occurred.");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean overRateLimit() {
+        int limit = properties.getMaxRequestsPerSecond();
+        if (limit <= 0) {
+            return false;
+        }
+        long second = System.nanoTime() / TimeUnit.SECONDS.toNanos(1);
+        long window = rateWindow.get();
+        if (window != second && rateWindow.compareAndSet(window, second)) {
+            rateWindowCount.set(0);
+        }
+        return rateWindowCount.incrementAndGet() > limit;
+    }
+
+    private static long sampleLatencyMillis(PayPalStandInProperties.Endpoint endpoint, ThreadLocalRandom random) {
+        double median = Math.max(1, endpoint.getMedianLatency().toMillis());
+        double p99 = Math.max(median, endpoint.getP99Latency().toMillis());
+        double mu = Math.log(median);
+        double sigma = (Math.log(p99) - mu) / Z_99;
+        long sample = Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+        return Math.min(sample, MAX_LATENCY_MILLIS);
+    }
+
+    private JsonNode readBody(HttpExchange exchange) {
+        try (InputStream body = exchange.getRequestBody()) {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void addLink(ArrayNode links, String href, String rel, String method) {
+        links.addObject().put("href", href).put("rel", rel).put("method", method);
+    }
+
+    private void sendError(HttpExchange exchange, int status, String name, String message) throws IOException {
+        ObjectNode error = objectMapper.createObjectNode()
+                .put("name", name)
+                .put("message", message)
+                .put("debug_id", randomId(13).toLowerCase())
+                .put("information_link", "https://developer.paypal.com/docs/api/payments/#errors");
+        send(exchange, status, error);
+    }
+
+    private void send(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        send(exchange, status, objectMapper.writeValueAsString(body));
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Paypal-Debug-Id", randomId(13).toLowerCase());
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String randomId(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] id = new char[length];
+        for (int i = 0; i < length; i++) {
+            id[i] = ID_CHARS[random.nextInt(ID_CHARS.length)];
+        }
+        return new String(id);
+    }
+}
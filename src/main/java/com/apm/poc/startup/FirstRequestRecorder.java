@@ -0,0 +1,72 @@
+package com.apm.poc.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures time-to-first-request: JVM uptime when the first /api/ request has been handled
+ *
+ * Exposed as the application.first.request.time gauge and as an apm.first-request step in
+ * /actuator/startup, under which any beans created lazily by that request show up.
+ * Later requests only pay for one volatile read.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Slf4j
+public class FirstRequestRecorder extends OncePerRequestFilter {
+
+    private final ConfigurableApplicationContext context;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final AtomicLong uptimeMillis = new AtomicLong(-1);
+
+    private volatile boolean recorded;
+
+    public FirstRequestRecorder(ConfigurableApplicationContext context, MeterRegistry meterRegistry) {
+        this.context = context;
+        TimeGauge.builder("application.first.request.time", uptimeMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time from JVM start until the first API request was handled, -1 until then")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return recorded || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!claimed.compareAndSet(false, true)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        StartupStep step = context.getApplicationStartup().start("apm.first-request")
+                .tag("uri", request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            step.end();
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            uptimeMillis.set(uptime);
+            recorded = true;
+            log.info("First request ({} {}) handled {} ms after JVM start",
+                    request.getMethod(), request.getRequestURI(), uptime);
+        }
+    }
+}
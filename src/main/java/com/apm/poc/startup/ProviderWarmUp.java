@@ -0,0 +1,73 @@
+package com.apm.poc.startup;
+
+import com.apm.poc.config.StartupProperties;
+import com.apm.poc.service.AsyncPaymentServiceInterface;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the beans a payment request needs once the application is ready, off the request path
+ *
+ * With lazy initialization the provider stack (and the PayPal token manager behind it) would
+ * otherwise be built by whichever request arrives first. Beans already created are just looked up,
+ * so this is harmless when lazy initialization is off.
+ */
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+@Slf4j
+public class ProviderWarmUp {
+
+    private final StartupProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!properties.isWarmUp() && !properties.isExitAfterWarmUp()) {
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "provider-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() {
+        try {
+            Thread.sleep(properties.getWarmUpDelay().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long start = System.nanoTime();
+        StartupStep step = context.getApplicationStartup().start("apm.warm-up");
+        try {
+            context.getBean(AsyncPaymentServiceInterface.class);
+            // Controllers pull in everything else a request touches (webhooks, admission, id generator)
+            int controllers = context.getBeansWithAnnotation(RestController.class).size();
+            step.tag("controllers", String.valueOf(controllers));
+            log.info("Warm-up finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            // The first request will create the beans (and report the failure) instead
+            step.tag("failure", e.getClass().getSimpleName());
+            log.warn("Warm-up failed, beans will be created on first use: {}", e.getMessage());
+        } finally {
+            step.end();
+        }
+
+        if (properties.isExitAfterWarmUp()) {
+            log.info("Exiting after warm-up (payment.startup.exit-after-warm-up)");
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.apm.poc.state;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Server-side lifecycle of a payment, as far as execution is concerned
+ *
+ * created -> executing -> approved | failed, created -> cancelled. An execute error leaves it
+ * unknown whether the provider executed the payment, so executing goes on to reconciling until
+ * the provider's own view of the payment settles it, or back to created once the provider shows
+ * it was not executed. Approved and cancelled are final. The provider has the last word: a
+ * webhook may settle a created, reconciling or failed payment.
+ */
+public enum PaymentState {
+    CREATED,
+    EXECUTING,
+    APPROVED,
+    FAILED,
+    CANCELLED,
+    RECONCILING;
+
+    private Set<PaymentState> next;
+
+    static {
+        CREATED.next = EnumSet.of(EXECUTING, CANCELLED, APPROVED, FAILED);
+        EXECUTING.next = EnumSet.of(APPROVED, FAILED, CREATED, RECONCILING);
+        APPROVED.next = EnumSet.noneOf(PaymentState.class);
+        FAILED.next = EnumSet.of(APPROVED);
+        CANCELLED.next = EnumSet.noneOf(PaymentState.class);
+        RECONCILING.next = EnumSet.of(EXECUTING, APPROVED, FAILED);
+    }
+
+    public boolean canTransitionTo(PaymentState target) {
+        return next.contains(target);
+    }
+
+    public boolean isFinal() {
+        return next.isEmpty();
+    }
+}
@@ -0,0 +1,217 @@
+package com.apm.poc.state;
+
+import com.apm.poc.config.PaymentStateProperties;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventListener;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Current PaymentState of each payment, changed only by compare-and-set
+ *
+ * Entries are immutable and compared by identity, so ConcurrentHashMap.replace(id, expected, next)
+ * is the CAS: of several threads racing from the same entry exactly one wins, the others re-read.
+ * An executing entry carries the in-flight result and a settled one the final result, so callers
+ * that lose the race can share it instead of calling the provider.
+ *
+ * Payments not held here are seeded from the PaymentIndex; ids the index does not know have no
+ * state at all, so arbitrary ids sent to the execute endpoint are refused rather than executed.
+ * Settled and long-created entries are swept inline after their TTL; the index still knows approved
+ * and cancelled payments afterwards. Reconciling entries are kept until the provider settles them.
+ * Lifecycle events from outside the execute path (confirmed webhooks) settle created payments;
+ * executing entries belong to the caller that started the execution.
+ */
+@Component
+public class PaymentStateStore implements PaymentEventListener {
+
+    private final PaymentIndex paymentIndex;
+    private final long settledTtlNanos;
+    private final long createdTtlNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepNanos;
+
+    public PaymentStateStore(PaymentIndex paymentIndex, PaymentStateProperties properties, MeterRegistry meterRegistry) {
+        this.paymentIndex = paymentIndex;
+        this.settledTtlNanos = properties.getSettledTtl().toNanos();
+        this.createdTtlNanos = properties.getCreatedTtl().toNanos();
+        this.nextSweepNanos = new AtomicLong(System.nanoTime() + sweepInterval());
+        Gauge.builder("payment.state.entries", entries, ConcurrentHashMap::size)
+                .description("Payments with server-side state held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Current entry of the payment, seeded from the index when not held yet
+     *
+     * @return null when the payment is unknown here and to the index
+     */
+    public Entry current(String paymentId) {
+        sweepIfDue();
+        Entry entry = entries.get(paymentId);
+        if (entry != null) {
+            return entry;
+        }
+        Entry seeded = seed(paymentId);
+        if (seeded == null) {
+            return null;
+        }
+        Entry existing = entries.putIfAbsent(paymentId, seeded);
+        return existing != null ? existing : seeded;
+    }
+
+    /**
+     * Moves the payment from expected to next if nobody changed it in between
+     *
+     * @throws IllegalStateException if the transition is not allowed
+     */
+    public boolean compareAndSet(String paymentId, Entry expected, Entry next) {
+        if (!expected.state.canTransitionTo(next.state)) {
+            throw new IllegalStateException("Illegal payment state transition " + expected.state + " -> " + next.state
+                    + " for " + paymentId);
+        }
+        return entries.replace(paymentId, expected, next);
+    }
+
+    /**
+     * Forgets the entry if it is still the given one; the next lookup re-seeds from the index
+     */
+    public void remove(String paymentId, Entry expected) {
+        entries.remove(paymentId, expected);
+    }
+
+    @Override
+    public void onEvent(PaymentEvent event) {
+        String paymentId = event.getPaymentId();
+        if (paymentId == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case CREATED:
+                entries.putIfAbsent(paymentId, Entry.created());
+                break;
+            case CANCELLED:
+                settle(paymentId, Entry.settled(PaymentState.CANCELLED, PaymentResponse.cancelled()));
+                break;
+            case EXECUTED:
+                settle(paymentId, Entry.settled(PaymentState.APPROVED, approvedResponse(paymentId)));
+                break;
+            case FAILED:
+                settle(paymentId, Entry.settled(PaymentState.FAILED, PaymentResponse.failed("Payment failed")));
+                break;
+            default:
+                break;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void settle(String paymentId, Entry next) {
+        // Only payments we know of; events for arbitrary ids must not grow the map
+        if (!entries.containsKey(paymentId) && paymentIndex.find(paymentId).isEmpty()) {
+            return;
+        }
+        while (true) {
+            Entry current = current(paymentId);
+            if (current == null || current.state == PaymentState.EXECUTING || !current.state.canTransitionTo(next.state)) {
+                return;
+            }
+            if (entries.replace(paymentId, current, next)) {
+                return;
+            }
+        }
+    }
+
+    private Entry seed(String paymentId) {
+        PaymentRecord record = paymentIndex.find(paymentId).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        String state = record.getState() != null ? record.getState() : "";
+        switch (state) {
+            case "approved":
+                return Entry.settled(PaymentState.APPROVED, PaymentResponse.approved(paymentId, record.getOrderId()));
+            case "cancelled":
+                return Entry.settled(PaymentState.CANCELLED, PaymentResponse.cancelled());
+            default:
+                // A decline leaves the payment executable at the provider (e.g. with another funding
+                // source), so failed may be retried; the provider refuses it if it really is final
+                return Entry.created();
+        }
+    }
+
+    private PaymentResponse approvedResponse(String paymentId) {
+        String orderId = paymentIndex.find(paymentId).map(PaymentRecord::getOrderId).orElse(null);
+        return PaymentResponse.approved(paymentId, orderId);
+    }
+
+    private void sweepIfDue() {
+        long now = System.nanoTime();
+        long sweepAt = nextSweepNanos.get();
+        if (now - sweepAt >= 0 && nextSweepNanos.compareAndSet(sweepAt, now + sweepInterval())) {
+            entries.entrySet().removeIf(mapping -> {
+                Entry entry = mapping.getValue();
+                long age = now - entry.updatedAtNanos;
+                if (entry.state == PaymentState.EXECUTING || entry.state == PaymentState.RECONCILING) {
+                    return false;
+                }
+                return entry.state == PaymentState.CREATED ? age >= createdTtlNanos : age >= settledTtlNanos;
+            });
+        }
+    }
+
+    private long sweepInterval() {
+        return Math.max(1, Math.min(settledTtlNanos, createdTtlNanos) / 2);
+    }
+
+    /**
+     * Immutable state of one payment; identity matters for the CAS
+     */
+    public static final class Entry {
+        private final PaymentState state;
+        private final CompletableFuture<PaymentResponse> result;
+        private final long updatedAtNanos;
+
+        private Entry(PaymentState state, CompletableFuture<PaymentResponse> result) {
+            this.state = state;
+            this.result = result;
+            this.updatedAtNanos = System.nanoTime();
+        }
+
+        public static Entry created() {
+            return new Entry(PaymentState.CREATED, null);
+        }
+
+        public static Entry executing(CompletableFuture<PaymentResponse> result) {
+            return new Entry(PaymentState.EXECUTING, result);
+        }
+
+        public static Entry reconciling() {
+            return new Entry(PaymentState.RECONCILING, null);
+        }
+
+        public static Entry settled(PaymentState state, PaymentResponse response) {
+            return new Entry(state, CompletableFuture.completedFuture(response));
+        }
+
+        public PaymentState getState() {
+            return state;
+        }
+
+        /**
+         * In-flight result while executing, final result once settled, null while created or reconciling
+         */
+        public CompletableFuture<PaymentResponse> getResult() {
+            return result;
+        }
+    }
+}
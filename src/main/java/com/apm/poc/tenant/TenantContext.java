@@ -0,0 +1,50 @@
+package com.apm.poc.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * Tenant of the request being served on this thread, null for single-merchant requests
+ *
+ * Set at the edge (TenantInterceptor, ReactivePaymentController) and carried over to the
+ * provider executors by ExecutorAsyncPaymentService, so PayPalService can pick the tenant's
+ * credentials without the tenant appearing in every service signature.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    static void set(String tenantId) {
+        if (tenantId == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tenantId);
+        }
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Runs the call with the given tenant, restoring the previous one afterwards
+     */
+    public static <T> T callWith(String tenantId, Supplier<T> call) {
+        String previous = CURRENT.get();
+        if (previous == null && tenantId == null) {
+            return call.get();
+        }
+        set(tenantId);
+        try {
+            return call.get();
+        } finally {
+            set(previous);
+        }
+    }
+}
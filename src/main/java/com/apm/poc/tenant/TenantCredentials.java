@@ -0,0 +1,29 @@
+package com.apm.poc.tenant;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One merchant's PayPal account, as listed in the tenants file
+ * Value equality: a reload only rebuilds the clients of tenants whose entry actually changed
+ */
+@Value
+@Builder
+public class TenantCredentials {
+    String id;
+    String clientId;
+    String clientSecret;
+    // sandbox or live; null uses paypal.mode
+    String mode;
+    // Overrides the API host implied by mode; null uses paypal.base-url
+    String baseUrl;
+    List<String> apiKeys;
+
+    @Override
+    public String toString() {
+        // Never log the secret
+        return "TenantCredentials(id=" + id + ", clientId=" + clientId + ", mode=" + mode + ")";
+    }
+}
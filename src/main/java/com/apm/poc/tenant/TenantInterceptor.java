@@ -0,0 +1,45 @@
+package com.apm.poc.tenant;
+
+import com.apm.poc.config.TenantProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Binds the request's tenant to the serving thread for the duration of the handler
+ * Async dispatches resolve it again; the result is the same for the same request
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantInterceptor implements AsyncHandlerInterceptor {
+
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    private final TenantResolver resolver;
+    private final TenantProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String path = URL_PATH_HELPER.getPathWithinApplication(request);
+        TenantContext.set(resolver.resolve(request.getHeader(properties.getHeader()),
+                request.getHeader(properties.getApiKeyHeader()),
+                request.getParameter(properties.getRedirectParameter()),
+                properties.getRedirectPaths().contains(path)));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The container thread goes back to the pool while the provider call runs
+        TenantContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        TenantContext.clear();
+    }
+}
@@ -0,0 +1,267 @@
+package com.apm.poc.tenant;
+
+import com.apm.poc.config.TenantProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tenants loaded from the YAML file named by payment.tenants.file, reloaded when it changes
+ *
+ * <pre>
+ * tenants:
+ *   - id: acme
+ *     client-id: ...
+ *     client-secret: ...
+ *     mode: live              # optional, defaults to paypal.mode
+ *     api-keys: [key-1, key-2]
+ * </pre>
+ *
+ * Lookups read one immutable snapshot through a volatile field, so they never lock. A watcher
+ * thread reloads the file on file system events (or every reload-interval, which also covers
+ * mounts that swap a symlink) and publishes the new snapshot in one write. A file that fails
+ * to parse leaves the previous snapshot in place.
+ */
+@Slf4j
+public class TenantRegistry {
+
+    private final TenantProperties properties;
+    private final Path file;
+    private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final Counter reloads;
+    private final Counter reloadFailures;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean running;
+    private Thread watcher;
+    private WatchService watchService;
+    // Owned by the watcher thread once started
+    private String loadedStamp;
+
+    public TenantRegistry(TenantProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.file = properties.getFile() == null || properties.getFile().isBlank()
+                ? null : Paths.get(properties.getFile()).toAbsolutePath();
+        this.reloads = Counter.builder("payment.tenants.reloads")
+                .description("Tenant file reloads")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.reloadFailures = Counter.builder("payment.tenants.reloads")
+                .description("Tenant file reloads")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        Gauge.builder("payment.tenants", this, registry -> registry.snapshot.tenants.size())
+                .description("Tenants currently configured")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the file, failing startup if it is unreadable, and starts watching it
+     */
+    public void start() throws IOException {
+        if (file == null) {
+            return;
+        }
+        loadedStamp = stamp();
+        snapshot = load();
+        log.info("Loaded {} tenants from {}", snapshot.tenants.size(), file);
+
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        running = true;
+        watcher = new Thread(this::watchLoop, "tenant-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (watchService != null) {
+            watchService.close();
+            watcher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public Optional<TenantCredentials> find(String tenantId) {
+        return Optional.ofNullable(snapshot.tenants.get(tenantId));
+    }
+
+    public Optional<TenantCredentials> findByApiKey(String apiKey) {
+        Snapshot current = snapshot;
+        String tenantId = current.tenantIdByApiKey.get(apiKey);
+        return tenantId == null ? Optional.empty() : Optional.ofNullable(current.tenants.get(tenantId));
+    }
+
+    /**
+     * Called on the watcher thread with every newly loaded snapshot
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.add(listener);
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(properties.getReloadInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    // Any event in the directory may be our file (editors and secret mounts replace it)
+                    key.pollEvents();
+                    key.reset();
+                }
+                reloadIfChanged();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Tenant file watcher failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void reloadIfChanged() {
+        String stamp;
+        try {
+            stamp = stamp();
+        } catch (IOException e) {
+            // Mid-replace or deleted; keep serving the tenants we have
+            return;
+        }
+        if (stamp.equals(loadedStamp)) {
+            return;
+        }
+        try {
+            Snapshot loaded = load();
+            loadedStamp = stamp;
+            snapshot = loaded;
+            reloads.increment();
+            log.info("Reloaded {} tenants from {}", loaded.tenants.size(), file);
+            for (Consumer<Snapshot> listener : listeners) {
+                listener.accept(loaded);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Retried on the next change; the stamp is kept so a broken file is not parsed every interval
+            loadedStamp = stamp;
+            reloadFailures.increment();
+            log.error("Failed to reload tenants from {}, keeping the previous {}: {}",
+                    file, snapshot.tenants.size(), e.getMessage());
+        }
+    }
+
+    private String stamp() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.lastModifiedTime().toMillis() + ":" + attributes.size() + ":" + attributes.fileKey();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Snapshot load() throws IOException {
+        Object root;
+        try (Reader reader = Files.newBufferedReader(file)) {
+            root = new Yaml(new SafeConstructor()).load(reader);
+        }
+        Object entries = root instanceof Map ? ((Map<String, Object>) root).get("tenants") : null;
+        if (!(entries instanceof List)) {
+            throw new IllegalArgumentException("Expected a 'tenants' list");
+        }
+
+        Map<String, TenantCredentials> tenants = new HashMap<>();
+        Map<String, String> tenantIdByApiKey = new HashMap<>();
+        for (Object entry : (List<Object>) entries) {
+            if (!(entry instanceof Map)) {
+                throw new IllegalArgumentException("Every tenant must be a map");
+            }
+            Map<String, Object> values = (Map<String, Object>) entry;
+            TenantCredentials tenant = TenantCredentials.builder()
+                    .id(required(values, "id"))
+                    .clientId(required(values, "client-id"))
+                    .clientSecret(required(values, "client-secret"))
+                    .mode(optional(values, "mode"))
+                    .baseUrl(optional(values, "base-url"))
+                    .apiKeys(apiKeys(values.get("api-keys")))
+                    .build();
+            if (tenants.put(tenant.getId(), tenant) != null) {
+                throw new IllegalArgumentException("Duplicate tenant " + tenant.getId());
+            }
+            for (String apiKey : tenant.getApiKeys()) {
+                String previous = tenantIdByApiKey.put(apiKey, tenant.getId());
+                if (previous != null) {
+                    throw new IllegalArgumentException("API key of tenant " + tenant.getId() + " is also used by " + previous);
+                }
+            }
+        }
+        return new Snapshot(Collections.unmodifiableMap(tenants), Collections.unmodifiableMap(tenantIdByApiKey));
+    }
+
+    private static String required(Map<String, Object> values, String name) {
+        String value = optional(values, name);
+        if (value == null) {
+            throw new IllegalArgumentException("Tenant entry without " + name);
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, Object> values, String name) {
+        Object value = values.get(name);
+        return value == null || value.toString().isBlank() ? null : value.toString();
+    }
+
+    private static List<String> apiKeys(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (!(value instanceof List)) {
+            throw new IllegalArgumentException("api-keys must be a list");
+        }
+        List<String> apiKeys = new ArrayList<>();
+        for (Object apiKey : (List<?>) value) {
+            apiKeys.add(apiKey.toString());
+        }
+        return Collections.unmodifiableList(apiKeys);
+    }
+
+    /**
+     * Immutable view of the tenants file at one point in time
+     */
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+
+        private final Map<String, TenantCredentials> tenants;
+        private final Map<String, String> tenantIdByApiKey;
+
+        private Snapshot(Map<String, TenantCredentials> tenants, Map<String, String> tenantIdByApiKey) {
+            this.tenants = tenants;
+            this.tenantIdByApiKey = tenantIdByApiKey;
+        }
+
+        public Optional<TenantCredentials> find(String tenantId) {
+            return Optional.ofNullable(tenants.get(tenantId));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.apm.poc.tenant;
+
+import com.apm.poc.exception.ErrorCode;
+import com.apm.poc.exception.PaymentException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the tenant of a request from its API key header or, on PayPal's redirects, from the
+ * merchant header or the query parameter we appended to the return URL
+ *
+ * The API key is the only secret, so it decides whenever it is present and a merchant header or
+ * parameter naming another tenant is refused. Elsewhere a merchant header without a key is refused
+ * too. PayPal's redirects carry none of our headers; they get the bare header or parameter, which
+ * is only good for settling a payment created with that tenant's credentials. A request naming
+ * no tenant is served with the default paypal.* credentials.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantResolver {
+
+    private final TenantRegistry registry;
+
+    /**
+     * @param redirect whether the request is PayPal's redirect back to us (see payment.tenants.redirect-paths)
+     * @return the tenant id, null for the default credentials
+     * @throws PaymentException UNKNOWN_TENANT when the request names a tenant that is not configured,
+     *                          TENANT_NOT_AUTHORIZED when it names one its API key does not belong to or has no key
+     */
+    public String resolve(String tenantHeader, String apiKey, String redirectParameter, boolean redirect) {
+        if (!registry.isEnabled()) {
+            return null;
+        }
+        if (hasText(apiKey)) {
+            String tenantId = registry.findByApiKey(apiKey)
+                    .orElseThrow(() -> unknown("Unknown API key"))
+                    .getId();
+            requireSame(tenantId, tenantHeader);
+            requireSame(tenantId, redirect ? redirectParameter : null);
+            return tenantId;
+        }
+        String named = hasText(tenantHeader) ? tenantHeader : redirect ? redirectParameter : null;
+        if (!hasText(named)) {
+            return null;
+        }
+        if (!redirect) {
+            throw new PaymentException(ErrorCode.TENANT_NOT_AUTHORIZED, "Merchant " + named + " requires its API key");
+        }
+        return registry.find(named)
+                .orElseThrow(() -> unknown("Unknown merchant: " + named))
+                .getId();
+    }
+
+    private void requireSame(String tenantId, String named) {
+        if (!hasText(named)) {
+            return;
+        }
+        String namedId = registry.find(named)
+                .orElseThrow(() -> unknown("Unknown merchant: " + named))
+                .getId();
+        if (!namedId.equals(tenantId)) {
+            throw new PaymentException(ErrorCode.TENANT_NOT_AUTHORIZED, "API key does not belong to merchant " + named);
+        }
+    }
+
+    private static PaymentException unknown(String message) {
+        return new PaymentException(ErrorCode.UNKNOWN_TENANT, message);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,331 @@
+package com.apm.poc.webhook;
+
+import com.apm.poc.config.WebhookProperties;
+import com.apm.poc.dto.PayPalWebhookEvent;
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventPublisher;
+import com.apm.poc.event.PaymentEventType;
+import com.apm.poc.journal.PaymentIndex;
+import com.apm.poc.journal.PaymentRecord;
+import com.apm.poc.service.AsyncPaymentServiceInterface;
+import com.apm.poc.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Applies provider webhook events to the payment lifecycle off the request thread
+ *
+ * The endpoint only offers the event to a bounded queue and answers straight away; when the
+ * queue is full it refuses, and PayPal redelivers later. A single consumer thread drains the
+ * queue in batches, drops events whose id it has already handled (PayPal delivers at least once),
+ * and publishes a lifecycle event for each real state change, which updates the index and journal.
+ *
+ * The endpoint is unauthenticated, so an event is only a hint that a payment changed: its state is
+ * fetched from the provider with the payment's own tenant credentials (one fetch per payment and
+ * batch, bypassing the details cache) and only the provider's answer is applied. Payments already
+ * approved or cancelled are never fetched, as nothing can move them. An event whose fetch fails is
+ * retried after retry-backoff, up to max-attempts; its id only counts as handled once it applied.
+ *
+ * payment.webhook.events{outcome}: received, rejected, applied, duplicate, unchanged, unconfirmed,
+ *   unknown_payment, ignored, retried, failed
+ */
+@Slf4j
+public class WebhookProcessor {
+
+    // Webhook event types that hint at a settled payment; other types are acknowledged and ignored
+    private static final Set<String> SETTLEMENT_EVENTS = Set.of("PAYMENT.SALE.COMPLETED", "PAYMENT.SALE.DENIED");
+    // Provider payment state to lifecycle transition
+    private static final Map<String, PaymentEventType> TRANSITIONS = Map.of(
+            "approved", PaymentEventType.EXECUTED,
+            "failed", PaymentEventType.FAILED);
+
+    private final WebhookProperties properties;
+    private final PaymentIndex paymentIndex;
+    private final PaymentEventPublisher eventPublisher;
+    private final AsyncPaymentServiceInterface paymentService;
+    private final BlockingQueue<PayPalWebhookEvent> queue;
+    private final Thread consumer;
+    private final Map<String, Counter> outcomes = new HashMap<>();
+    private final DistributionSummary batchSize;
+
+    // Owned by the consumer thread; insertion ordered so the oldest ids are forgotten first
+    private final Set<String> seenEventIds;
+    // Owned by the consumer thread; a fixed backoff keeps it in due order
+    private final Deque<Delivery> retries = new ArrayDeque<>();
+
+    private volatile boolean running;
+
+    public WebhookProcessor(WebhookProperties properties, PaymentIndex paymentIndex,
+                            PaymentEventPublisher eventPublisher, AsyncPaymentServiceInterface paymentService,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.paymentIndex = paymentIndex;
+        this.eventPublisher = eventPublisher;
+        this.paymentService = paymentService;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.consumer = new Thread(this::consumeLoop, "payment-webhook-consumer");
+        this.consumer.setDaemon(true);
+
+        int dedupeEntries = properties.getDedupeEntries();
+        this.seenEventIds = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupeEntries;
+            }
+        });
+
+        for (String outcome : new String[]{"received", "rejected", "applied", "duplicate", "unchanged",
+                "unconfirmed", "unknown_payment", "ignored", "retried", "failed"}) {
+            outcomes.put(outcome, Counter.builder("payment.webhook.events")
+                    .description("Provider webhook events by processing outcome")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        this.batchSize = DistributionSummary.builder("payment.webhook.batch.size")
+                .description("Webhook events processed per consumer batch")
+                .register(meterRegistry);
+        Gauge.builder("payment.webhook.queue.size", queue, BlockingQueue::size)
+                .description("Webhook events accepted and waiting to be processed")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        running = true;
+        consumer.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        // The consumer drains whatever was already acknowledged before it exits
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Queues an event for processing
+     *
+     * @return false when the queue is full or the processor is stopped; the sender should redeliver
+     */
+    public boolean submit(PayPalWebhookEvent event) {
+        if (running && queue.offer(event)) {
+            outcomes.get("received").increment();
+            return true;
+        }
+        outcomes.get("rejected").increment();
+        return false;
+    }
+
+    private void consumeLoop() {
+        int maxBatchSize = properties.getMaxBatchSize();
+        List<PayPalWebhookEvent> events = new ArrayList<>(maxBatchSize);
+        List<Delivery> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                long waitNanos = properties.getPollInterval().toNanos();
+                if (!retries.isEmpty()) {
+                    waitNanos = Math.max(0, Math.min(waitNanos, retries.peek().dueNanos - System.nanoTime()));
+                }
+                PayPalWebhookEvent first = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    events.add(first);
+                    queue.drainTo(events, maxBatchSize - 1);
+                }
+                for (PayPalWebhookEvent event : events) {
+                    batch.add(new Delivery(event, 1));
+                }
+                long now = System.nanoTime();
+                while (batch.size() < maxBatchSize && !retries.isEmpty() && now - retries.peek().dueNanos >= 0) {
+                    batch.add(retries.poll());
+                }
+                if (!batch.isEmpty()) {
+                    processBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                events.clear();
+                batch.clear();
+            }
+        }
+        if (!retries.isEmpty()) {
+            log.warn("Webhook consumer stopped with {} events awaiting retry", retries.size());
+        }
+    }
+
+    private void processBatch(List<Delivery> batch) throws InterruptedException {
+        batchSize.record(batch.size());
+        // Start every provider fetch first, so the batch waits for the slowest one rather than their sum
+        Map<String, CompletableFuture<PaymentDetails>> fetches = new HashMap<>();
+        List<Delivery> pending = new ArrayList<>();
+        for (Delivery delivery : batch) {
+            String outcome;
+            try {
+                outcome = prepare(delivery, fetches);
+            } catch (RuntimeException e) {
+                outcome = retryOrFail(delivery, e);
+            }
+            if (outcome == null) {
+                pending.add(delivery);
+            } else {
+                complete(delivery, outcome);
+            }
+        }
+
+        long deadline = System.nanoTime() + properties.getConfirmTimeout().toNanos();
+        for (Delivery delivery : pending) {
+            String outcome;
+            try {
+                PaymentDetails details = fetches.get(delivery.paymentId)
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                outcome = apply(delivery, details);
+            } catch (ExecutionException | TimeoutException | RuntimeException e) {
+                outcome = retryOrFail(delivery, e instanceof ExecutionException ? e.getCause() : e);
+            }
+            complete(delivery, outcome);
+        }
+    }
+
+    /**
+     * Settles what needs no provider call, otherwise starts (or joins) the fetch of the payment
+     *
+     * @return the outcome, or null when it depends on the fetch
+     */
+    private String prepare(Delivery delivery, Map<String, CompletableFuture<PaymentDetails>> fetches) {
+        PayPalWebhookEvent event = delivery.event;
+        if (seenEventIds.contains(event.getId())) {
+            log.debug("Dropping redelivered webhook event {}", event.getId());
+            return "duplicate";
+        }
+        String paymentId = paymentIdOf(event);
+        if (!SETTLEMENT_EVENTS.contains(event.getEventType()) || paymentId == null) {
+            log.debug("Ignoring webhook event {} of type {}", event.getId(), event.getEventType());
+            return "ignored";
+        }
+        PaymentRecord record = paymentIndex.find(paymentId).orElse(null);
+        if (record == null) {
+            log.warn("Webhook event {} for unknown payment {}", event.getId(), paymentId);
+            return "unknown_payment";
+        }
+        if ("approved".equals(record.getState()) || "cancelled".equals(record.getState())) {
+            // Usually the redirect to /success got there first; either way the state is final
+            return "unchanged";
+        }
+        delivery.paymentId = paymentId;
+        fetches.computeIfAbsent(paymentId, id -> fetch(record));
+        return null;
+    }
+
+    /**
+     * Current details from the provider, with the credentials of the tenant that created the payment
+     */
+    private CompletableFuture<PaymentDetails> fetch(PaymentRecord record) {
+        String paymentId = record.getPaymentId();
+        try {
+            return TenantContext.callWith(record.getTenant(), () -> {
+                paymentService.invalidate(paymentId);
+                return paymentService.getPaymentDetails(paymentId);
+            });
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private String apply(Delivery delivery, PaymentDetails details) {
+        String paymentId = delivery.paymentId;
+        String state = details.getState();
+        PaymentEventType type = state == null ? null : TRANSITIONS.get(state);
+        if (type == null) {
+            log.info("Webhook {} ({}) for payment {} not confirmed, provider reports {}", delivery.event.getId(),
+                    delivery.event.getEventType(), paymentId, state);
+            return "unconfirmed";
+        }
+        // Re-read: an earlier event of the batch may have settled the payment meanwhile
+        PaymentRecord record = paymentIndex.find(paymentId).orElse(null);
+        if (record == null || state.equals(record.getState())) {
+            return "unchanged";
+        }
+
+        log.info("Webhook {} moves payment {} from {} to {}", delivery.event.getEventType(), paymentId,
+                record.getState(), state);
+        eventPublisher.publish(PaymentEvent.builder()
+                .type(type)
+                .paymentId(paymentId)
+                .provider(record.getProvider())
+                .state(state)
+                .timestamp(System.currentTimeMillis())
+                .build());
+        return "applied";
+    }
+
+    private String retryOrFail(Delivery delivery, Throwable error) {
+        PayPalWebhookEvent event = delivery.event;
+        if (delivery.attempt < properties.getMaxAttempts()) {
+            log.warn("Webhook event {} ({}) attempt {} failed, retrying: {}", event.getId(), event.getEventType(),
+                    delivery.attempt, error.toString());
+            retries.add(new Delivery(event, delivery.attempt + 1,
+                    System.nanoTime() + properties.getRetryBackoff().toNanos()));
+            return "retried";
+        }
+        log.error("Giving up on webhook event {} ({}) after {} attempts: {}", event.getId(), event.getEventType(),
+                delivery.attempt, error.toString(), error);
+        return "failed";
+    }
+
+    private void complete(Delivery delivery, String outcome) {
+        if (!"retried".equals(outcome) && !"failed".equals(outcome)) {
+            seenEventIds.add(delivery.event.getId());
+        }
+        outcomes.get(outcome).increment();
+    }
+
+    private static String paymentIdOf(PayPalWebhookEvent event) {
+        PayPalWebhookEvent.Resource resource = event.getResource();
+        if (resource == null) {
+            return null;
+        }
+        if (resource.getParentPayment() != null) {
+            return resource.getParentPayment();
+        }
+        return "payment".equals(event.getResourceType()) ? resource.getId() : null;
+    }
+
+    /**
+     * One processing attempt of an event; consumer thread only
+     */
+    private static final class Delivery {
+        private final PayPalWebhookEvent event;
+        private final int attempt;
+        private final long dueNanos;
+        private String paymentId;
+
+        private Delivery(PayPalWebhookEvent event, int attempt) {
+            this(event, attempt, 0);
+        }
+
+        private Delivery(PayPalWebhookEvent event, int attempt, long dueNanos) {
+            this.event = event;
+            this.attempt = attempt;
+            this.dueNanos = dueNanos;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.apm.poc.config;
+
+import com.apm.poc.service.AsyncPaymentServiceInterface;
+import com.apm.poc.service.ReactivePaymentServiceAdapter;
+import com.apm.poc.service.ReactivePaymentServiceInterface;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebFlux edition of the payment API, active when spring.main.web-application-type=reactive (profile reactive)
+ * Only compiled by the reactive Maven profile, which adds WebFlux to the otherwise servlet-only build
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    /**
+     * Netty, even though the reactive build still has Tomcat on the class path and it would be picked first
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public ReactivePaymentServiceInterface reactivePaymentService(AsyncPaymentServiceInterface asyncPaymentService) {
+        return new ReactivePaymentServiceAdapter(asyncPaymentService);
+    }
+}
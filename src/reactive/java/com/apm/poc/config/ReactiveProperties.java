@@ -0,0 +1,18 @@
+package com.apm.poc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * WebFlux edition of the payment API (profile reactive)
+ */
+@Component
+@ConfigurationProperties(prefix = "payment.reactive")
+@Data
+public class ReactiveProperties {
+    // Upper bound for a payment request before it is answered with 503, like spring.mvc.async.request-timeout
+    private Duration requestTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,261 @@
+package com.apm.poc.controller;
+
+import com.apm.poc.admission.AdmissionService;
+import com.apm.poc.config.AdmissionProperties;
+import com.apm.poc.config.ReactiveProperties;
+import com.apm.poc.config.StatusLookupProperties;
+import com.apm.poc.config.TenantProperties;
+import com.apm.poc.dto.BatchPaymentRequest;
+import com.apm.poc.dto.BatchPaymentResponse;
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.dto.PaymentStatusLine;
+import com.apm.poc.dto.PaymentStatusRequest;
+import com.apm.poc.service.BatchPaymentService;
+import com.apm.poc.service.IdempotencyService;
+import com.apm.poc.service.PaymentStatusLookupService;
+import com.apm.poc.service.ReactivePaymentServiceAdapter;
+import com.apm.poc.service.ReactivePaymentServiceInterface;
+import com.apm.poc.service.StatusLookupStreams;
+import com.apm.poc.tenant.TenantContext;
+import com.apm.poc.tenant.TenantResolver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Same /api/payment contract as PaymentController, served by WebFlux on Netty (profile reactive)
+ *
+ * Admission runs at the start of each provider-bound endpoint, since WebFlux has no handler
+ * interceptors; rejections still reach GlobalExceptionHandler and answer 429 with Retry-After.
+ * The tenant is resolved the same way and bound while each response Mono is assembled.
+ * Built only with the reactive Maven profile, which adds src/reactive/java and WebFlux.
+ */
+@RestController
+@RequestMapping("/api/payment")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+public class ReactivePaymentController {
+
+    private final ReactivePaymentServiceInterface paymentService;
+    private final IdempotencyService idempotencyService;
+    private final BatchPaymentService batchPaymentService;
+    private final AdmissionService admissionService;
+    private final AdmissionProperties admissionProperties;
+    private final ReactiveProperties properties;
+    private final TenantResolver tenantResolver;
+    private final TenantProperties tenantProperties;
+    private final PaymentStatusLookupService statusLookupService;
+    private final StatusLookupProperties statusLookupProperties;
+    private final StatusLookupStreams statusLookupStreams;
+
+    /**
+     * Initiates a payment (PayPal, Apple Pay, etc.)
+     * Retries with the same Idempotency-Key (or orderId) get the original response back
+     */
+    @PostMapping("/create")
+    public Mono<ResponseEntity<PaymentResponse>> createPayment(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody PaymentRequest request,
+            ServerHttpRequest httpRequest) {
+        log.info("Received payment request from: {}", request.getUserEmail());
+        admitClient(httpRequest);
+        return withTimeout(asTenant(httpRequest, () -> ReactivePaymentServiceAdapter.fromFuture(
+                        () -> idempotencyService.createPayment(idempotencyKey, request,
+                                () -> admissionService.admitPayer(request.getUserEmail())))))
+                .map(result -> ResponseEntity.status(HttpStatus.CREATED)
+                        .header("Idempotent-Replayed", String.valueOf(result.isReplayed()))
+                        .body(result.getResponse()));
+    }
+
+    /**
+     * Creates many payments in one call; each item reports its own response or error
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BatchPaymentResponse>> createPayments(
+            @Valid @RequestBody BatchPaymentRequest request,
+            ServerHttpRequest httpRequest) {
+        log.info("Received batch payment request with {} payments", request.getPayments().size());
+        admitClient(httpRequest);
+        return withTimeout(asTenant(httpRequest, () -> {
+                    // Inside the tenant, since orderIds are only unique per merchant
+                    admissionService.admitPayers(request.getPayments().stream()
+                            .filter(payment -> !idempotencyService.isReplay(payment))
+                            .map(PaymentRequest::getUserEmail)
+                            .collect(Collectors.toList()));
+                    return ReactivePaymentServiceAdapter.fromFuture(
+                            () -> batchPaymentService.createPayments(request.getPayments()));
+                }))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Success callback - Payment provider redirects here after user approves payment
+     */
+    @GetMapping("/success")
+    public Mono<ResponseEntity<PaymentResponse>> paymentSuccess(
+            @RequestParam("paymentId") String paymentId,
+            @RequestParam("PayerID") String payerId,
+            ServerHttpRequest httpRequest) {
+        log.info("Payment success callback - Payment ID: {}, Payer ID: {}", paymentId, payerId);
+        admitClient(httpRequest);
+        return withTimeout(asTenant(httpRequest, () -> paymentService.executePayment(paymentId, payerId)))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Cancel callback - Payment provider redirects here if user cancels payment
+     * Informational only: anyone can call it, so the payment stays created and lapses at the provider
+     */
+    @GetMapping("/cancel")
+    public ResponseEntity<PaymentResponse> paymentCancel(
+            @RequestParam(value = "paymentId", required = false) String paymentId) {
+        log.info("Payment was cancelled by user, Payment ID: {}", paymentId);
+        return ResponseEntity.ok(PaymentResponse.cancelled());
+    }
+
+    /**
+     * Get payment details by ID
+     */
+    @GetMapping("/{paymentId}")
+    public Mono<ResponseEntity<PaymentDetails>> getPaymentDetails(@PathVariable String paymentId,
+                                                                  ServerHttpRequest httpRequest) {
+        log.info("Fetching payment details for: {}", paymentId);
+        admitClient(httpRequest);
+        return withTimeout(asTenant(httpRequest, () -> paymentService.getPaymentDetails(paymentId)))
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Status of many payments, streamed as NDJSON like PaymentController's
+     * The lookup blocks while it waits for results and paces provider calls, so it runs on the
+     * status lookup executor and hands a line to Netty only once the client has asked for it
+     */
+    @PostMapping(value = "/status", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PaymentStatusLine> getPaymentStatuses(@Valid @RequestBody PaymentStatusRequest request,
+                                                      ServerHttpRequest httpRequest) {
+        log.info("Received status lookup for {} payments", request.getPaymentIds().size());
+        admitClient(httpRequest);
+        HttpHeaders headers = httpRequest.getHeaders();
+        String merchantId = headers.getFirst(admissionProperties.getMerchantHeader());
+        String apiKey = headers.getFirst(admissionProperties.getApiKeyHeader());
+        PaymentStatusLookupService.Lookup lookup = TenantContext.callWith(tenantOf(httpRequest),
+                () -> statusLookupService.lookup(request.getPaymentIds(),
+                        () -> admissionService.awaitClient(merchantId, apiKey)));
+        InetSocketAddress remote = httpRequest.getRemoteAddress();
+        StatusLookupStreams.Slot slot = statusLookupStreams.open(apiKey, merchantId,
+                remote != null ? remote.getHostString() : null);
+        int total = request.getPaymentIds().size();
+
+        return Flux.<PaymentStatusLine>create(sink -> {
+                    Semaphore demand = new Semaphore(0);
+                    sink.onRequest(requested -> demand.release((int) Math.min(requested, total)));
+                    Future<?> stream;
+                    try {
+                        stream = statusLookupStreams.getExecutor().submit(() -> {
+                            try {
+                                lookup.writeTo(new PaymentStatusLookupService.LineSink() {
+                                    @Override
+                                    public void write(PaymentStatusLine line) throws IOException {
+                                        try {
+                                            demand.acquire();
+                                        } catch (InterruptedException e) {
+                                            Thread.currentThread().interrupt();
+                                            throw new InterruptedIOException("Status lookup cancelled");
+                                        }
+                                        sink.next(line);
+                                    }
+
+                                    @Override
+                                    public void flush() {
+                                        // Every line is handed to Netty as soon as it is written
+                                    }
+                                });
+                            } catch (IOException | InterruptedException e) {
+                                // Cancelled or timed out: the stream simply ends
+                            } finally {
+                                slot.close();
+                                sink.complete();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        slot.close();
+                        sink.error(e);
+                        return;
+                    }
+                    sink.onDispose(() -> {
+                        stream.cancel(true);
+                        slot.close();
+                    });
+                })
+                .take(statusLookupProperties.getTimeout());
+    }
+
+    /**
+     * Health check endpoint
+     */
+    @GetMapping("/health")
+    public ResponseEntity<String> health() {
+        return ResponseEntity.ok("Payment service is running");
+    }
+
+    /**
+     * Load shedding and merchant / API key limits, as AdmissionInterceptor does for the servlet edition
+     */
+    private void admitClient(ServerHttpRequest request) {
+        if (!admissionService.isEnabled()) {
+            return;
+        }
+        HttpHeaders headers = request.getHeaders();
+        admissionService.checkLoad();
+        admissionService.admitClient(headers.getFirst(admissionProperties.getMerchantHeader()),
+                headers.getFirst(admissionProperties.getApiKeyHeader()));
+    }
+
+    /**
+     * Assembles the response with the request's tenant bound, as TenantInterceptor does for the servlet edition
+     */
+    private <T> Mono<T> asTenant(ServerHttpRequest request, Supplier<Mono<T>> response) {
+        return TenantContext.callWith(tenantOf(request), response);
+    }
+
+    private String tenantOf(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return tenantResolver.resolve(headers.getFirst(tenantProperties.getHeader()),
+                headers.getFirst(tenantProperties.getApiKeyHeader()),
+                request.getQueryParams().getFirst(tenantProperties.getRedirectParameter()),
+                tenantProperties.getRedirectPaths().contains(request.getPath().pathWithinApplication().value()));
+    }
+
+    private <T> Mono<T> withTimeout(Mono<T> response) {
+        return response.timeout(properties.getRequestTimeout());
+    }
+}
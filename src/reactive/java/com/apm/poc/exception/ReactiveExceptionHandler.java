@@ -0,0 +1,72 @@
+package com.apm.poc.exception;
+
+import com.apm.poc.dto.ErrorResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * WebFlux flavours of the request errors GlobalExceptionHandler maps for Spring MVC (profile reactive)
+ * Runs first; everything else, including PaymentException and admission rejections, falls through to it
+ */
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveExceptionHandler {
+
+    private static final String REQUEST_TIMEOUT_MESSAGE = "Payment provider did not respond in time. Please try again later.";
+
+    private final GlobalExceptionHandler responses;
+    private final ErrorLogger errorLogger;
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, String>> handleValidationExceptions(WebExchangeBindException ex) {
+        errorLogger.record(ErrorCode.VALIDATION_FAILED, ex);
+        Map<String, String> errors = new HashMap<>();
+        ex.getBindingResult().getAllErrors().forEach((error) -> {
+            String fieldName = ((FieldError) error).getField();
+            String errorMessage = error.getDefaultMessage();
+            errors.put(fieldName, errorMessage);
+        });
+        return ResponseEntity.status(ErrorCode.VALIDATION_FAILED.getStatus()).body(errors);
+    }
+
+    /**
+     * Missing parameters or headers, type mismatches and unreadable bodies; the reason never echoes the input
+     */
+    @ExceptionHandler({ServerWebInputException.class, UnsupportedMediaTypeStatusException.class})
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(ResponseStatusException ex) {
+        errorLogger.record(ErrorCode.INVALID_REQUEST, ex);
+        return responses.response(ErrorCode.INVALID_REQUEST, ex.getReason());
+    }
+
+    @ExceptionHandler(MethodNotAllowedException.class)
+    public ResponseEntity<ErrorResponse> handleMethodNotSupported(MethodNotAllowedException ex) {
+        errorLogger.record(ErrorCode.METHOD_NOT_ALLOWED, ex);
+        return responses.response(ErrorCode.METHOD_NOT_ALLOWED, ex.getReason());
+    }
+
+    /**
+     * payment.reactive.request-timeout elapsed, the counterpart of an MVC async request timeout
+     */
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<ErrorResponse> handleTimeout(TimeoutException ex) {
+        errorLogger.record(ErrorCode.REQUEST_TIMEOUT, ex);
+        return responses.response(ErrorCode.REQUEST_TIMEOUT, REQUEST_TIMEOUT_MESSAGE);
+    }
+}
@@ -0,0 +1,49 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import com.apm.poc.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Serves the reactive API from the existing async stack (cache, state, router, circuit breakers, events)
+ *
+ * Blocking provider SDK calls keep running on the bounded provider executors; the event loop
+ * only starts them and is called back when they complete.
+ */
+@RequiredArgsConstructor
+public class ReactivePaymentServiceAdapter implements ReactivePaymentServiceInterface {
+
+    private final AsyncPaymentServiceInterface delegate;
+
+    @Override
+    public Mono<PaymentResponse> createPayment(PaymentRequest request) {
+        return fromFuture(() -> delegate.createPayment(request));
+    }
+
+    @Override
+    public Mono<PaymentResponse> executePayment(String paymentId, String payerId) {
+        return fromFuture(() -> delegate.executePayment(paymentId, payerId));
+    }
+
+    @Override
+    public Mono<PaymentDetails> getPaymentDetails(String paymentId) {
+        return fromFuture(() -> delegate.getPaymentDetails(paymentId));
+    }
+
+    /**
+     * Defers the call to subscription time. The Mono follows a copy of the future, since the
+     * original may be shared (idempotent replays, concurrent executes) and a client that goes
+     * away must not cancel it for everyone else. The tenant current at assembly is restored
+     * for the call, as subscription may happen on another event loop thread.
+     */
+    public static <T> Mono<T> fromFuture(Supplier<CompletableFuture<T>> call) {
+        String tenantId = TenantContext.current();
+        return Mono.defer(() -> Mono.fromFuture(TenantContext.callWith(tenantId, call).copy()));
+    }
+}
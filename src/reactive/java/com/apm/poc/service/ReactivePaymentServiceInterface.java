@@ -0,0 +1,28 @@
+package com.apm.poc.service;
+
+import com.apm.poc.dto.PaymentDetails;
+import com.apm.poc.dto.PaymentRequest;
+import com.apm.poc.dto.PaymentResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of PaymentServiceInterface, used by the WebFlux edition of the API (profile reactive)
+ * Nothing is called until the Mono is subscribed, and no method blocks the subscribing event loop thread
+ */
+public interface ReactivePaymentServiceInterface {
+
+    /**
+     * Creates a payment and emits the approval/authorization URL
+     */
+    Mono<PaymentResponse> createPayment(PaymentRequest request);
+
+    /**
+     * Executes the payment after user approval/authorization
+     */
+    Mono<PaymentResponse> executePayment(String paymentId, String payerId);
+
+    /**
+     * Gets payment details
+     */
+    Mono<PaymentDetails> getPaymentDetails(String paymentId);
+}
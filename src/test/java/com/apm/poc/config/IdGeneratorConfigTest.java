@@ -0,0 +1,22 @@
+package com.apm.poc.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdGeneratorConfigTest {
+
+    @Test
+    void startupFailsWithoutANodeId() {
+        assertThrows(IllegalStateException.class,
+                () -> new IdGeneratorConfig().idGenerator(new IdGeneratorProperties()));
+    }
+
+    @Test
+    void configuredNodeIdIsUsed() {
+        IdGeneratorProperties properties = new IdGeneratorProperties();
+        properties.setNodeId(5);
+        assertNotNull(new IdGeneratorConfig().idGenerator(properties));
+    }
+}
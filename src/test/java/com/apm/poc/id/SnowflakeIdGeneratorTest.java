@@ -0,0 +1,92 @@
+package com.apm.poc.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void concurrentCallersGetUniqueIdsInOrderPerThread() throws Exception {
+        int threads = 16;
+        int perThread = 50_000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, SnowflakeIdGenerator.MAX_SHARDS, EPOCH);
+        long before = System.currentTimeMillis();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[perThread];
+                    String previous = "";
+                    long previousId = -1;
+                    for (int i = 0; i < perThread; i++) {
+                        String id = generator.nextId("PAY-");
+                        // String order equals numeric order, and each thread's IDs only go up
+                        assertTrue(id.compareTo(previous) > 0, id + " after " + previous);
+                        previous = id;
+                        ids[i] = generator.nextId();
+                        assertTrue(ids[i] > previousId, ids[i] + " after " + previousId);
+                        previousId = ids[i];
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            Set<Long> seen = new HashSet<>(threads * perThread * 2);
+            for (Future<long[]> task : tasks) {
+                for (long id : task.get(60, TimeUnit.SECONDS)) {
+                    assertTrue(seen.add(id), "duplicate id " + id);
+                }
+            }
+            assertEquals(threads * perThread, seen.size());
+
+            long after = System.currentTimeMillis();
+            for (long id : seen) {
+                long timestamp = generator.timestampOf(id);
+                // Exhausted sequences borrow a few milliseconds ahead
+                assertTrue(timestamp >= before && timestamp <= after + 1_000, "timestamp " + timestamp);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void nodesNeverIssueTheSameId() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, 1, EPOCH);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, 1, EPOCH);
+        for (int i = 0; i < 10_000; i++) {
+            assertNotEquals(first.nextId(), second.nextId());
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1, 1, EPOCH));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE + 1, 1, EPOCH));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(0, 3, EPOCH));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(0, 1, Instant.now().plusSeconds(60)));
+    }
+}
@@ -0,0 +1,198 @@
+package com.apm.poc.journal;
+
+import com.apm.poc.config.JournalProperties;
+import com.apm.poc.event.PaymentEvent;
+import com.apm.poc.event.PaymentEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsWrittenAfterAPartialWriteSurviveReplay() throws Exception {
+        TearingChannel[] current = new TearingChannel[1];
+        PaymentJournal journal = new PaymentJournal(properties(), new PaymentIndex(), new SimpleMeterRegistry()) {
+            @Override
+            FileChannel openSegment(Path segment) throws IOException {
+                current[0] = new TearingChannel(super.openSegment(segment));
+                return current[0];
+            }
+        };
+        journal.start();
+        await(journal.append(created("PAY-1")));
+
+        current[0].tearNextWrite = true;
+        CompletableFuture<Void> torn = journal.append(created("PAY-2"));
+        assertThrows(ExecutionException.class, () -> torn.get(5, TimeUnit.SECONDS));
+
+        await(journal.append(created("PAY-3")));
+        await(journal.append(approved("PAY-3")));
+        journal.stop();
+
+        PaymentIndex replayed = new PaymentIndex();
+        new PaymentJournal(properties(), replayed, new SimpleMeterRegistry()).start();
+
+        assertEquals(2, replayed.size());
+        assertTrue(replayed.find("PAY-1").isPresent());
+        assertEquals("approved", replayed.find("PAY-3").get().getState());
+    }
+
+    private JournalProperties properties() {
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setPollInterval(Duration.ofMillis(10));
+        return properties;
+    }
+
+    private static void await(CompletableFuture<Void> durable) throws Exception {
+        durable.get(5, TimeUnit.SECONDS);
+    }
+
+    private static PaymentEvent created(String paymentId) {
+        return PaymentEvent.builder()
+                .type(PaymentEventType.CREATED)
+                .paymentId(paymentId)
+                .provider("paypal")
+                .orderId("order-" + paymentId)
+                .state("created")
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private static PaymentEvent approved(String paymentId) {
+        return PaymentEvent.builder()
+                .type(PaymentEventType.EXECUTED)
+                .paymentId(paymentId)
+                .state("approved")
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+
+    /**
+     * Delegates to a real channel; when armed, writes only the first few bytes of the next
+     * gathering write and then fails, as a full disk would
+     */
+    private static final class TearingChannel extends FileChannel {
+        private final FileChannel delegate;
+        private volatile boolean tearNextWrite;
+
+        private TearingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            if (tearNextWrite) {
+                tearNextWrite = false;
+                ByteBuffer first = srcs[offset].duplicate();
+                first.limit(first.position() + first.remaining() / 2);
+                delegate.write(first);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return delegate.write(src);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.apm.poc.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(2, new EventRingBuffer<Integer>(1).capacity());
+        assertEquals(8, new EventRingBuffer<Integer>(5).capacity());
+        assertEquals(8, new EventRingBuffer<Integer>(8).capacity());
+    }
+
+    @Test
+    void fullBufferRejectsOfferUntilOldestIsPolled() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(4);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(5));
+
+        // Drop-oldest: the producer polls the oldest element and takes its slot
+        assertEquals(1, buffer.poll());
+        assertTrue(buffer.offer(5));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals(List.of(2, 3, 4, 5), drained);
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void slotsAreReusedAcrossLaps() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(2);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(buffer.offer(i));
+            assertEquals(i, buffer.poll());
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void concurrentProducersWithDropOldestLoseNothingSilently() throws Exception {
+        int producers = 4;
+        int perProducer = 200_000;
+        EventRingBuffer<Long> buffer = new EventRingBuffer<>(64);
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong droppedOldest = new AtomicLong();
+        AtomicBoolean producing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 1);
+        try {
+            List<Future<?>> producerTasks = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producerId = p;
+                producerTasks.add(executor.submit(() -> {
+                    start.await();
+                    for (long sequence = 0; sequence < perProducer; sequence++) {
+                        long element = producerId << 32 | sequence;
+                        // Same overflow handling as the outbox: drop the oldest, then retry
+                        while (!buffer.offer(element)) {
+                            if (buffer.poll() != null) {
+                                droppedOldest.incrementAndGet();
+                            }
+                        }
+                        accepted.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            List<Long> consumed = new ArrayList<>();
+            Future<?> consumer = executor.submit(() -> {
+                start.await();
+                List<Long> batch = new ArrayList<>();
+                while (producing.get() || !buffer.isEmpty()) {
+                    batch.clear();
+                    if (buffer.drainTo(batch, 128) == 0) {
+                        Thread.onSpinWait();
+                    }
+                    consumed.addAll(batch);
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> task : producerTasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+            producing.set(false);
+            consumer.get(60, TimeUnit.SECONDS);
+
+            assertEquals((long) producers * perProducer, accepted.get());
+            assertEquals(accepted.get(), consumed.size() + droppedOldest.get());
+
+            // Every element arrives at most once and in its producer's order
+            long[] lastSequence = new long[producers];
+            Arrays.fill(lastSequence, -1);
+            for (long element : consumed) {
+                int producerId = (int) (element >>> 32);
+                long sequence = element & 0xFFFF_FFFFL;
+                assertTrue(sequence > lastSequence[producerId],
+                        "producer " + producerId + " element " + sequence + " after " + lastSequence[producerId]);
+                lastSequence[producerId] = sequence;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}